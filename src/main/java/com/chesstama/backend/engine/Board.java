@@ -1,14 +1,16 @@
 package com.chesstama.backend.engine;
 
 import com.chesstama.backend.eval.CardMove;
+import com.chesstama.backend.eval.EvalAccumulator;
 import com.chesstama.backend.eval.Move;
+import com.chesstama.backend.eval.PackedMove;
 import com.chesstama.backend.eval.PiecePosition;
 import com.chesstama.backend.util.BoardUtil;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableSet;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -42,6 +44,7 @@ Row  +----+----+----+----+----+
     public static final int BOARD_INDEX_MAX = 31;
     public static final int MAX_ROWS = 5;
     public static final int MAX_COLS = 5;
+    public static final int MAX_SQUARES = MAX_ROWS * MAX_COLS;
 
     public static final int MIN_ROW_INDEX = 0;
     public static final int MAX_ROW_INDEX = 4;
@@ -52,6 +55,20 @@ Row  +----+----+----+----+----+
     public static final Position P1_KING_SLOT = new Position(4, 2);
     public static final Position P2_KING_SLOT = new Position(0, 2);
 
+    // Undo stack, one record per move made on the board
+    private static final int INITIAL_UNDO_DEPTH = 64;
+    private static final int UNDO_RECORD_SIZE = 6;
+    private static final int CARD_BITS = 5;
+    private static final int CARD_MASK = (1 << CARD_BITS) - 1;
+
+    private static final Card[] CARDS = Card.values();
+    private static final Player[] PLAYERS = Player.values();
+    private static final Optional<Player> P1_WINNER = Optional.of(Player.P1);
+    private static final Optional<Player> P2_WINNER = Optional.of(Player.P2);
+
+    private static final int P1_KING_SLOT_MASK = BoardUtil.getBoardMask(BoardUtil.get1DBoardPosition(P1_KING_SLOT));
+    private static final int P2_KING_SLOT_MASK = BoardUtil.getBoardMask(BoardUtil.get1DBoardPosition(P2_KING_SLOT));
+
     // 00 | 00 | 02 | 00
     private int p1King;
 
@@ -76,6 +93,13 @@ Row  +----+----+----+----+----+
     private boolean gameOver;
     private Optional<Player> gameWinner;
 
+    private long hashKey;
+    private EvalAccumulator evalAccumulator;
+
+    private int[] undoStack;
+    private long[] hashKeyStack;
+    private int undoDepth;
+
     private Board(final Builder builder) {
         this.p1King = builder.p1King;
         this.p1Pawns = builder.p1Pawns;
@@ -94,10 +118,19 @@ Row  +----+----+----+----+----+
         this.gameOver = builder.gameOver;
         this.gameWinner = builder.gameWinner;
 
+        this.undoStack = new int[INITIAL_UNDO_DEPTH * UNDO_RECORD_SIZE];
+        this.hashKeyStack = new long[INITIAL_UNDO_DEPTH];
+
         assertValidCardState();
 
+        this.hashKey = Zobrist.computeHashKey(this);
+        this.evalAccumulator = new EvalAccumulator();
+        evalAccumulator.refresh(this);
     }
 
+    /**
+     * @return Copy of the board along with the moves made on it, which can be unmade and are checked for repetitions
+     */
     public Board copy() {
         Builder builder = new Builder()
             .withP1King(p1King)
@@ -112,7 +145,13 @@ Row  +----+----+----+----+----+
             .withGameOver(gameOver)
             .withGameWinner(gameWinner);
 
-        return new Board(builder);
+        Board board = new Board(builder);
+        board.undoStack = Arrays.copyOf(undoStack, undoStack.length);
+        board.hashKeyStack = Arrays.copyOf(hashKeyStack, hashKeyStack.length);
+        board.undoDepth = undoDepth;
+        board.evalAccumulator = evalAccumulator.copy();
+
+        return board;
     }
 
     private <T> List<T> copyList(final List<T> list) {
@@ -141,144 +180,266 @@ Row  +----+----+----+----+----+
         Position to = move.getTo();
         Card playedCard = move.getCard();
 
-        Position kingPos = getKingPosition(currentPlayer);
-        Set<Position> pawnPositions = getPawnPositions(currentPlayer);
-        Set<Position> piecePositions = new ImmutableSet.Builder<Position>()
-            .add(kingPos)
-            .addAll(pawnPositions)
-            .build();
+        validateMove(currentPlayer, move, playedCard);
 
-        validateMove(currentPlayer, move, playedCard, piecePositions);
+        PieceType pieceTypeToMove = from.equals(getKingPosition(currentPlayer)) ? PieceType.KING : PieceType.PAWN;
 
-        PieceType pieceTypeToMove = from.equals(kingPos) ? PieceType.KING : PieceType.PAWN;
+        makeMove(PackedMove.encode(
+            currentPlayer,
+            playedCard,
+            pieceTypeToMove,
+            BoardUtil.get1DBoardPosition(from),
+            BoardUtil.get1DBoardPosition(to)
+        ));
+    }
 
+    /**
+     * Makes a move generated by the search, the move is expected to be valid for the current player.
+     * The board state prior to the move is saved and can be restored with {@link #unmakeMove()}.
+     *
+     * @param move Packed move, see {@link PackedMove}
+     */
+    public void makeMove(final int move) {
+        if (gameOver) {
+            throw new RuntimeException("Game is over and was already won by " + gameWinner.get());
+        }
+
+        pushUndoRecord();
+
+        int fromMask = BoardUtil.getBoardMask(PackedMove.getFrom(move));
+        int toMask = BoardUtil.getBoardMask(PackedMove.getTo(move));
+        Card playedCard = PackedMove.getCard(move);
+
+        Player player = currentPlayer;
         Player opponent = currentPlayer.getOpponent();
-        Position opponentKingPos = getKingPosition(opponent);
-        Set<Position> opponentPawnPositions = getPawnPositions(opponent);
-        Position opponentKingHome = currentPlayer == Player.P1 ? P2_KING_SLOT : P1_KING_SLOT;
+        boolean isCapture = false;
+        int king = getKingMask(currentPlayer);
+        int pawns = getPawnMask(currentPlayer);
+        int opponentKing = getKingMask(opponent);
+        int opponentPawns = getPawnMask(opponent);
+        int opponentKingHome = currentPlayer == Player.P1 ? P2_KING_SLOT_MASK : P1_KING_SLOT_MASK;
+
+        PieceType pieceType = PackedMove.getPieceType(move);
+        hashKey ^= Zobrist.getPieceKey(currentPlayer, pieceType, PackedMove.getFrom(move))
+            ^ Zobrist.getPieceKey(currentPlayer, pieceType, PackedMove.getTo(move));
 
-        Position toCopy = to.copy();
         // King Movement
-        if (pieceTypeToMove == PieceType.KING) {
+        if (pieceType == PieceType.KING) {
             // Perform the king move
-            kingPos = toCopy;
+            king = toMask;
 
-            if (to.equals(opponentKingPos)) {
+            if (toMask == opponentKing) {
                 // Capture Opponent King
-                opponentKingPos = null;
+                opponentKing = 0;
+                hashKey ^= Zobrist.getPieceKey(opponent, PieceType.KING, PackedMove.getTo(move));
                 triggerGameOver();
-            } else if (to.equals(opponentKingHome)) {
+            } else if (toMask == opponentKingHome) {
                 // Reach Opponent King Home
                 triggerGameOver();
-            } else if (opponentPawnPositions.contains(to)) {
+            } else if ((opponentPawns & toMask) != 0) {
                 // Capture Pawn
-                opponentPawnPositions.remove(to);
+                opponentPawns &= ~toMask;
+                isCapture = true;
+                hashKey ^= Zobrist.getPieceKey(opponent, PieceType.PAWN, PackedMove.getTo(move));
             }
         } else {
             // Perform the pawn move
-            pawnPositions.remove(from);
-            pawnPositions.add(toCopy);
+            pawns = (pawns & ~fromMask) | toMask;
 
-            if (to.equals(opponentKingPos)) {
+            if (toMask == opponentKing) {
                 // Capture Opponent King
-                opponentKingPos = null;
+                opponentKing = 0;
+                hashKey ^= Zobrist.getPieceKey(opponent, PieceType.KING, PackedMove.getTo(move));
                 triggerGameOver();
-            } else if (opponentPawnPositions.contains(to)) {
+            } else if ((opponentPawns & toMask) != 0) {
                 // Capture Opponent Pawn
-                opponentPawnPositions.remove(to);
+                opponentPawns &= ~toMask;
+                isCapture = true;
+                hashKey ^= Zobrist.getPieceKey(opponent, PieceType.PAWN, PackedMove.getTo(move));
             }
         }
 
         updateGameState(
-                kingPos,
-                pawnPositions,
-                opponentKingPos,
-                opponentPawnPositions,
+                king,
+                pawns,
+                opponentKing,
+                opponentPawns,
                 playedCard
         );
+
+        // Evaluations are only needed for boards which are not over
+        if (!gameOver) {
+            evalAccumulator.update(this, player, pieceType, PackedMove.getFrom(move), PackedMove.getTo(move),
+                isCapture);
+        }
     }
 
-    private void updateGameState(final Position kingPos,
-                                 final Set<Position> pawnPositions,
-                                 final Position opponentKingPos,
-                                 final Set<Position> opponentPawnPositions,
+    private void updateGameState(final int king,
+                                 final int pawns,
+                                 final int opponentKing,
+                                 final int opponentPawns,
                                  final Card playedCard) {
         // Remove played card
         List<Card> cards = getCards(currentPlayer);
         cards.remove(playedCard);
 
         // Fetch upcoming card and add it to list of playable cards
-        cards.add(getUpcomingCard(currentPlayer));
+        Card upcomingCard = getUpcomingCard(currentPlayer);
+        cards.add(upcomingCard);
+        hashKey ^= Zobrist.getCardKey(currentPlayer, playedCard) ^ Zobrist.getCardKey(currentPlayer, upcomingCard);
 
-        // Update upcoming card for current player and opponent
-        setUpcomingCard(currentPlayer, Card.EMPTY);
-        setUpcomingCard(currentPlayer.getOpponent(), playedCard);
+        // Update upcoming card for current player and opponent, the cards of the deal stay the same
+        updateUpcomingCard(currentPlayer, Card.EMPTY);
+        updateUpcomingCard(currentPlayer.getOpponent(), playedCard);
 
         // Update king & pawn positions and currentPlayer
         if (currentPlayer == Player.P1) {
-            // kingPos and pawnPositions is used to set P1 King & P1 Pawns and vice-versa
-            updateKingAndPawnPositions(kingPos, pawnPositions, opponentKingPos, opponentPawnPositions);
+            // king and pawns are used to set P1 King & P1 Pawns and vice-versa
+            updateKingAndPawnMasks(king, pawns, opponentKing, opponentPawns);
             if (!gameOver) {
                 currentPlayer = Player.P2;
+                hashKey ^= Zobrist.getCurrentPlayerKey(Player.P2);
             }
         } else {
-            updateKingAndPawnPositions(opponentKingPos, opponentPawnPositions, kingPos, pawnPositions);
+            updateKingAndPawnMasks(opponentKing, opponentPawns, king, pawns);
             if (!gameOver) {
                 currentPlayer = Player.P1;
+                hashKey ^= Zobrist.getCurrentPlayerKey(Player.P2);
             }
         }
 
     }
 
-    private void updateKingAndPawnPositions(final Position kingPos,
-                                            final Set<Position> pawnPositions,
-                                            final Position opponentKingPos,
-                                            final Set<Position> opponentPawnPositions) {
-        this.p1King = getValueWithBitSetAtPos(0, getSetBitPosFromPosition(kingPos));
-        this.p1Pawns = getPawnPositions(pawnPositions);
+    private void updateKingAndPawnMasks(final int p1King,
+                                        final int p1Pawns,
+                                        final int p2King,
+                                        final int p2Pawns) {
+        this.p1King = p1King;
+        this.p1Pawns = p1Pawns;
 
-        this.p2King = getValueWithBitSetAtPos(0, getSetBitPosFromPosition(opponentKingPos));
-        this.p2Pawns = getPawnPositions(opponentPawnPositions);
+        this.p2King = p2King;
+        this.p2Pawns = p2Pawns;
     }
 
-    private int getPawnPositions(final Set<Position> pawnPositions) {
-        if (pawnPositions.isEmpty()) {
-            return 0;
+    /**
+     * Restores the board state saved by the last {@link #makeMove(int)}.
+     */
+    public void unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("No move to unmake");
         }
 
-        return pawnPositions.stream()
-                            .map(this::getSetBitPosFromPosition)
-                            .map(pos -> getValueWithBitSetAtPos(0, pos))
-                            .reduce((a, b) -> a | b)
-                            .orElseThrow(() -> new RuntimeException("Unable to compute p1Pawns"));
+        undoDepth--;
+        int index = undoDepth * UNDO_RECORD_SIZE;
+
+        p1King = undoStack[index];
+        p1Pawns = undoStack[index + 1];
+        p2King = undoStack[index + 2];
+        p2Pawns = undoStack[index + 3];
+
+        int cards = undoStack[index + 4];
+        p1Cards.set(0, getCard(cards, 0));
+        p1Cards.set(1, getCard(cards, 1));
+        p2Cards.set(0, getCard(cards, 2));
+        p2Cards.set(1, getCard(cards, 3));
+        p1UpcomingCard = getCard(cards, 4);
+        p2UpcomingCard = getCard(cards, 5);
+
+        int state = undoStack[index + 5];
+        currentPlayer = PLAYERS[state & 1];
+        gameOver = (state & 2) != 0;
+        gameWinner = getGameWinner(state >>> 2);
+
+        hashKey = hashKeyStack[undoDepth];
+        evalAccumulator.pop();
+    }
+
+    public int getUndoDepth() {
+        return undoDepth;
+    }
+
+    /**
+     * Forgets the moves made so far, they can no longer be unmade nor repeated. To be called once the game state is
+     * overwritten, as the undo records belong to the previous state.
+     */
+    public void clearUndoHistory() {
+        undoDepth = 0;
+        evalAccumulator.clearSavedStates();
     }
 
-    private int getSetBitPosFromPosition(final Position position) {
-        if (position == null) {
-            return -1;
+    /**
+     * @return true if the position occurred before, since the board was built, with the same player to move
+     */
+    public boolean isRepetition() {
+        int pawns = Integer.bitCount(p1Pawns | p2Pawns);
+
+        // The same player is to move every other ply, and no position before a capture can occur again
+        for (int depth = undoDepth - 2; depth >= 0; depth -= 2) {
+            int index = depth * UNDO_RECORD_SIZE;
+
+            if (Integer.bitCount(undoStack[index + 1] | undoStack[index + 3]) != pawns) {
+                return false;
+            }
+
+            if (hashKeyStack[depth] == hashKey) {
+                return true;
+            }
         }
 
-        return position.getRow() * Board.MAX_ROWS + position.getCol();
+        return false;
     }
 
-    private int getValueWithBitSetAtPos(final int value,
-                                        final int bitPos) {
-        if (bitPos < 0) {
-            return 0;
+    private void pushUndoRecord() {
+        int index = undoDepth * UNDO_RECORD_SIZE;
+        if (index == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            hashKeyStack = Arrays.copyOf(hashKeyStack, hashKeyStack.length * 2);
         }
 
-        return value | (1 << (BOARD_INDEX_MAX - bitPos));
+        hashKeyStack[undoDepth] = hashKey;
+        evalAccumulator.push();
+
+        undoStack[index] = p1King;
+        undoStack[index + 1] = p1Pawns;
+        undoStack[index + 2] = p2King;
+        undoStack[index + 3] = p2Pawns;
+
+        undoStack[index + 4] = p1Cards.get(0).ordinal()
+            | p1Cards.get(1).ordinal() << CARD_BITS
+            | p2Cards.get(0).ordinal() << (2 * CARD_BITS)
+            | p2Cards.get(1).ordinal() << (3 * CARD_BITS)
+            | p1UpcomingCard.ordinal() << (4 * CARD_BITS)
+            | p2UpcomingCard.ordinal() << (5 * CARD_BITS);
+
+        // currentPlayer | gameOver | gameWinner (0 = none, 1 = P1, 2 = P2)
+        int winner = gameWinner.isPresent() ? gameWinner.get().ordinal() + 1 : 0;
+        undoStack[index + 5] = currentPlayer.ordinal()
+            | (gameOver ? 2 : 0)
+            | winner << 2;
+
+        undoDepth++;
+    }
+
+    private static Card getCard(final int cards, final int slot) {
+        return CARDS[(cards >>> (slot * CARD_BITS)) & CARD_MASK];
+    }
+
+    private static Optional<Player> getGameWinner(final int winner) {
+        if (winner == 0) {
+            return Optional.empty();
+        }
+
+        return winner == 1 ? P1_WINNER : P2_WINNER;
     }
 
     private void triggerGameOver() {
-        gameWinner = Optional.of(currentPlayer);
+        gameWinner = currentPlayer == Player.P1 ? P1_WINNER : P2_WINNER;
         gameOver = true;
     }
 
     private void validateMove(final Player currentPlayer,
                               final Move move,
-                              final Card card,
-                              final Set<Position> piecePositions) {
+                              final Card card) {
         Position from = move.getFrom();
         Position to = move.getTo();
 
@@ -286,9 +447,10 @@ Row  +----+----+----+----+----+
             throw new IllegalArgumentException("From/To Position out of bounds, from = " + from + ", to = " + to);
         }
 
-        if (!piecePositions.contains(from)) {
+        int fromPos = BoardUtil.get1DBoardPosition(from);
+        if ((getPieceMask(currentPlayer) & BoardUtil.getBoardMask(fromPos)) == 0) {
             throw new IllegalArgumentException("From position doesn't contain any of the current player pieces, from = "
-                    + from + ", piecePositions = " + piecePositions);
+                    + from + ", piecePositions = " + getAllPiecePositions(currentPlayer));
         }
 
         List<Card> cards = getCards(currentPlayer);
@@ -296,7 +458,8 @@ Row  +----+----+----+----+----+
             throw new IllegalArgumentException("Card = " + card + " not in the list of playable cards for current player = " + cards);
         }
 
-        if (!card.isValidMove(currentPlayer, from, to)) {
+        int destinationMask = getDestinationMask(currentPlayer, card, fromPos);
+        if ((destinationMask & BoardUtil.getBoardMask(BoardUtil.get1DBoardPosition(to))) == 0) {
             throw new IllegalArgumentException("Cannot play move = " + move + " with card = " + card);
         }
     }
@@ -324,7 +487,7 @@ Row  +----+----+----+----+----+
         if (kingPosition == 0) {
             return null;
         }
-        int oneDimensionBoardPos = BoardUtil.get1DBoardPosition(kingPosition);
+        int oneDimensionBoardPos = BoardUtil.getSquareFromMask(kingPosition);
         return BoardUtil.get2DBoardPosition(oneDimensionBoardPos);
     }
 
@@ -335,7 +498,7 @@ Row  +----+----+----+----+----+
 
         while (pawnPosition != 0 && pawnsFound < MAX_PAWNS) {
             // Extract rightmost set bit
-            int pos = BoardUtil.get1DBoardPosition(pawnPosition);
+            int pos = BoardUtil.getSquareFromMask(pawnPosition);
 
             // Add position to result
             result.add(BoardUtil.get2DBoardPosition(pos));
@@ -349,6 +512,39 @@ Row  +----+----+----+----+----+
         return result;
     }
 
+    public int getKingMask(final Player player) {
+        return player == Player.P1 ? p1King : p2King;
+    }
+
+    public int getPawnMask(final Player player) {
+        return player == Player.P1 ? p1Pawns : p2Pawns;
+    }
+
+    public int getPieceMask(final Player player) {
+        return player == Player.P1 ? p1King | p1Pawns : p2King | p2Pawns;
+    }
+
+    /**
+     * @param player Player
+     * @return Board mask of the king home slot of player, the opponent wins by moving its king there
+     */
+    public static int getKingSlotMask(final Player player) {
+        return player == Player.P1 ? P1_KING_SLOT_MASK : P2_KING_SLOT_MASK;
+    }
+
+    /**
+     * Board mask of the squares the piece at pos can move to with card, excluding squares occupied by
+     * the player's own pieces.
+     *
+     * @param player Player to move
+     * @param card Card to play
+     * @param pos 1D board position of the piece to move
+     * @return Destination mask in board bit layout
+     */
+    public int getDestinationMask(final Player player, final Card card, final int pos) {
+        return card.getDestinationMask(player, pos) & ~getPieceMask(player);
+    }
+
     public Set<PiecePosition> getAllPiecePositions(final Player player) {
         Set<PiecePosition> piecePositions = new HashSet<>();
         piecePositions.add(new PiecePosition(PieceType.KING, getKingPosition(player)));
@@ -394,6 +590,13 @@ Row  +----+----+----+----+----+
     }
 
     public void setUpcomingCard(final Player player, final Card card) {
+        updateUpcomingCard(player, card);
+        evalAccumulator.refresh(this);
+    }
+
+    private void updateUpcomingCard(final Player player, final Card card) {
+        hashKey ^= Zobrist.getUpcomingCardKey(player, getUpcomingCard(player)) ^ Zobrist.getUpcomingCardKey(player, card);
+
         if (player == Player.P1) {
             p1UpcomingCard = card;
         } else {
@@ -452,30 +655,43 @@ Row  +----+----+----+----+----+
     }
 
     public void setP1King(final int p1King) {
+        hashKey ^= Zobrist.getPiecesKey(Player.P1, PieceType.KING, this.p1King)
+            ^ Zobrist.getPiecesKey(Player.P1, PieceType.KING, p1King);
         this.p1King = p1King;
+        evalAccumulator.refresh(this);
     }
 
     public void setP1Pawns(final int p1Pawns) {
+        hashKey ^= Zobrist.getPiecesKey(Player.P1, PieceType.PAWN, this.p1Pawns)
+            ^ Zobrist.getPiecesKey(Player.P1, PieceType.PAWN, p1Pawns);
         this.p1Pawns = p1Pawns;
+        evalAccumulator.refresh(this);
     }
 
     public void setP2King(final int p2King) {
+        hashKey ^= Zobrist.getPiecesKey(Player.P2, PieceType.KING, this.p2King)
+            ^ Zobrist.getPiecesKey(Player.P2, PieceType.KING, p2King);
         this.p2King = p2King;
+        evalAccumulator.refresh(this);
     }
 
     public void setP2Pawns(final int p2Pawns) {
+        hashKey ^= Zobrist.getPiecesKey(Player.P2, PieceType.PAWN, this.p2Pawns)
+            ^ Zobrist.getPiecesKey(Player.P2, PieceType.PAWN, p2Pawns);
         this.p2Pawns = p2Pawns;
+        evalAccumulator.refresh(this);
     }
 
     public void setP1UpcomingCard(final Card p1UpcomingCard) {
-        this.p1UpcomingCard = p1UpcomingCard;
+        setUpcomingCard(Player.P1, p1UpcomingCard);
     }
 
     public void setP2UpcomingCard(final Card p2UpcomingCard) {
-        this.p2UpcomingCard = p2UpcomingCard;
+        setUpcomingCard(Player.P2, p2UpcomingCard);
     }
 
     public void setCurrentPlayer(final Player currentPlayer) {
+        hashKey ^= Zobrist.getCurrentPlayerKey(this.currentPlayer) ^ Zobrist.getCurrentPlayerKey(currentPlayer);
         this.currentPlayer = currentPlayer;
     }
 
@@ -487,6 +703,65 @@ Row  +----+----+----+----+----+
         this.gameWinner = gameWinner;
     }
 
+    /**
+     * 64-bit Zobrist key of the position, maintained incrementally by makeMove/unmakeMove and the setters.
+     * Call {@link #refreshHashKey()} after modifying the lists returned by {@link #getCards(Player)} directly.
+     *
+     * @return Hash key
+     */
+    public long getHashKey() {
+        return hashKey;
+    }
+
+    /**
+     * Partial sums of the evaluation, maintained incrementally as the hash key
+     *
+     * @return Evaluation accumulator
+     */
+    public EvalAccumulator getEvalAccumulator() {
+        return evalAccumulator;
+    }
+
+    /**
+     * Recomputes the hash key and the evaluation accumulator from scratch
+     */
+    public void refreshHashKey() {
+        hashKey = Zobrist.computeHashKey(this);
+        evalAccumulator.refresh(this);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Board board = (Board) o;
+        return p1King == board.p1King &&
+            p1Pawns == board.p1Pawns &&
+            p2King == board.p2King &&
+            p2Pawns == board.p2Pawns &&
+            hasSameCards(p1Cards, board.p1Cards) &&
+            p1UpcomingCard == board.p1UpcomingCard &&
+            hasSameCards(p2Cards, board.p2Cards) &&
+            p2UpcomingCard == board.p2UpcomingCard &&
+            currentPlayer == board.currentPlayer &&
+            gameOver == board.gameOver &&
+            gameWinner.equals(board.gameWinner);
+    }
+
+    private static boolean hasSameCards(final List<Card> cards, final List<Card> otherCards) {
+        // Order of the cards in hand depends on the order they were played in
+        return cards.size() == otherCards.size() && cards.containsAll(otherCards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hashKey);
+    }
+
     public int getP1King() {
         return p1King;
     }
@@ -1,6 +1,7 @@
 package com.chesstama.backend.engine;
 
 import com.chesstama.backend.util.BoardUtil;
+import com.google.common.collect.ImmutableSet;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -184,24 +185,81 @@ public enum Card {
     private static final Map<Integer, Card> CARD_MAP = Arrays.stream(Card.values())
         .collect(Collectors.toMap(Card::getValue, Function.identity()));
 
+    /*
+    Destination masks indexed by [card][player][from square], flattened into a single array.
+    Each entry uses the board bit layout and has off-board targets already removed.
+     */
+    private static final int[] DESTINATION_MASKS = computeDestinationMasks();
+
     private final int value;
 
+    // Relative moves are decoded once from the card value
+    private final Set<Position> p1RelativeMoves;
+    private final Set<Position> p2RelativeMoves;
+
     Card(final int value) {
         this.value = value;
+        this.p1RelativeMoves = decodeRelativeMoves(value, Player.P1);
+        this.p2RelativeMoves = decodeRelativeMoves(value, Player.P2);
     }
 
     public int getValue() {
         return value;
     }
 
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     public Set<Position> getRelativeMoves(final Player player) {
+        return player == Player.P1 ? p1RelativeMoves : p2RelativeMoves;
+    }
+
+    /**
+     * Board mask of all squares reachable from pos with this card, ignoring the pieces on the board.
+     *
+     * @param player Player playing the card
+     * @param pos 1D board position of the piece to move
+     * @return Destination mask in board bit layout
+     */
+    public int getDestinationMask(final Player player, final int pos) {
+        return DESTINATION_MASKS[getDestinationMaskIndex(this, player, pos)];
+    }
+
+    private static int getDestinationMaskIndex(final Card card, final Player player, final int pos) {
+        return (card.ordinal() * Player.values().length + player.ordinal()) * Board.MAX_SQUARES + pos;
+    }
+
+    private static int[] computeDestinationMasks() {
+        Card[] cards = values();
+        Player[] players = Player.values();
+        int[] masks = new int[cards.length * players.length * Board.MAX_SQUARES];
+
+        for (Card card : cards) {
+            for (Player player : players) {
+                for (int pos = 0; pos < Board.MAX_SQUARES; pos++) {
+                    Position from = BoardUtil.get2DBoardPosition(pos);
+                    int mask = 0;
+
+                    for (Position relativeMove : card.getRelativeMoves(player)) {
+                        Position to = from.add(relativeMove);
+                        if (to.isValid()) {
+                            mask |= BoardUtil.getBoardMask(BoardUtil.get1DBoardPosition(to));
+                        }
+                    }
+
+                    masks[getDestinationMaskIndex(card, player, pos)] = mask;
+                }
+            }
+        }
+
+        return masks;
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static Set<Position> decodeRelativeMoves(final int value, final Player player) {
         Set<Position> result = new HashSet<>();
         int cardPosition = value;
 
         while (cardPosition != 0) {
             // Extract rightmost set bit
-            int pos = BoardUtil.get1DBoardPosition(cardPosition);
+            int pos = BoardUtil.getSquareFromMask(cardPosition);
 
             // Add position to result
             Position validMove = BoardUtil.get2DBoardPosition(pos);
@@ -214,21 +272,19 @@ public enum Card {
             cardPosition = cardPosition & ~(1 << (Board.BOARD_INDEX_MAX - pos));
         }
 
-        return result;
+        return ImmutableSet.copyOf(result);
     }
 
     public boolean isValidMove(final Player player,
                                final Position from,
                                final Position to) {
-        Set<Position> relativeMoves = getRelativeMoves(player);
-
-        for (Position relativeMove : relativeMoves) {
-            if (from.add(relativeMove).equals(to)) {
-                return true;
-            }
+        if (!from.isValid() || !to.isValid()) {
+            return false;
         }
 
-        return false;
+        int destinationMask = getDestinationMask(player, BoardUtil.get1DBoardPosition(from));
+
+        return (destinationMask & BoardUtil.getBoardMask(BoardUtil.get1DBoardPosition(to))) != 0;
     }
 
     public Set<Position> getAbsoluteMoves() {
@@ -0,0 +1,202 @@
+package com.chesstama.backend.engine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Encodes the full game state of a Board into two longs, one per player, so that positions can be kept in
+ * primitive arrays. Cards are stored as slot indices into the 5 cards dealt for the game, see {@link #getDeal(Board)}.
+ *
+ * Bit layout of each word (LSB first)
+ * (0-24)  : king mask (25 bits, square 0 at bit 24)
+ * (25-49) : pawn mask (25 bits, square 0 at bit 49)
+ * (50-52) : first card slot
+ * (53-55) : second card slot
+ * (56-58) : upcoming card slot (EMPTY_SLOT if none)
+ *
+ * Additionally for the P1 word
+ * (59)    : current player ordinal
+ * (60)    : game over flag
+ * (61)    : game winner ordinal
+ */
+public final class PackedPosition {
+    public static final int DEAL_SIZE = 5;
+    public static final int WORDS = 2;
+
+    private static final int SQUARE_MASK_SHIFT = Board.BOARD_INDEX_MAX + 1 - Board.MAX_SQUARES;
+    private static final long SQUARE_MASK = (1L << Board.MAX_SQUARES) - 1;
+
+    private static final int PAWNS_SHIFT = Board.MAX_SQUARES;
+    private static final int CARDS_SHIFT = PAWNS_SHIFT + Board.MAX_SQUARES;
+    private static final int SLOT_BITS = 3;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int EMPTY_SLOT = SLOT_MASK;
+
+    private static final int CURRENT_PLAYER_SHIFT = CARDS_SHIFT + 3 * SLOT_BITS;
+    private static final int GAME_OVER_SHIFT = CURRENT_PLAYER_SHIFT + 1;
+    private static final int GAME_WINNER_SHIFT = GAME_OVER_SHIFT + 1;
+
+    private static final Player[] PLAYERS = Player.values();
+
+    private PackedPosition() {
+    }
+
+    /**
+     * Cards in play for the board, sorted by ordinal so that boards of the same game share the same deal.
+     *
+     * @param board Board
+     * @return The 5 dealt cards
+     */
+    public static Card[] getDeal(final Board board) {
+        Card[] deal = new Card[DEAL_SIZE];
+        int count = 0;
+
+        for (Player player : PLAYERS) {
+            for (Card card : board.getCards(player)) {
+                count = addToDeal(deal, count, card);
+            }
+
+            Card upcomingCard = board.getUpcomingCard(player);
+            if (upcomingCard != Card.EMPTY) {
+                count = addToDeal(deal, count, upcomingCard);
+            }
+        }
+
+        if (count != DEAL_SIZE) {
+            throw new IllegalArgumentException("Board must have " + DEAL_SIZE + " cards in play, cards = "
+                + Arrays.toString(Arrays.copyOf(deal, count)));
+        }
+
+        Arrays.sort(deal);
+
+        return deal;
+    }
+
+    private static int addToDeal(final Card[] deal, final int count, final Card card) {
+        if (count == DEAL_SIZE) {
+            throw new IllegalArgumentException("Board has more than " + DEAL_SIZE + " cards in play, card = " + card);
+        }
+
+        deal[count] = card;
+        return count + 1;
+    }
+
+    public static long getP1Word(final Board board, final Card[] deal) {
+        long word = getPlayerWord(board, Player.P1, deal);
+
+        Optional<Player> gameWinner = board.getGameWinner();
+        word |= (long) board.getCurrentPlayer().ordinal() << CURRENT_PLAYER_SHIFT;
+        word |= (board.isGameOver() ? 1L : 0L) << GAME_OVER_SHIFT;
+        word |= (long) (gameWinner.isPresent() ? gameWinner.get().ordinal() : 0) << GAME_WINNER_SHIFT;
+
+        return word;
+    }
+
+    public static long getP2Word(final Board board, final Card[] deal) {
+        return getPlayerWord(board, Player.P2, deal);
+    }
+
+    /**
+     * Packs board into positions[WORDS * index] and positions[WORDS * index + 1]
+     *
+     * @param board Board
+     * @param deal Dealt cards
+     * @param positions Packed positions
+     * @param index Index of the position in positions
+     */
+    public static void pack(final Board board, final Card[] deal, final long[] positions, final int index) {
+        positions[WORDS * index] = getP1Word(board, deal);
+        positions[WORDS * index + 1] = getP2Word(board, deal);
+    }
+
+    public static Board unpack(final long[] positions, final int index, final Card[] deal) {
+        return unpack(positions[WORDS * index], positions[WORDS * index + 1], deal);
+    }
+
+    public static Board unpack(final long p1Word, final long p2Word, final Card[] deal) {
+        Board board = new Board.Builder().build();
+        restore(board, p1Word, p2Word, deal);
+
+        return board;
+    }
+
+    /**
+     * Overwrites the game state of board with the packed position. The moves made on board before belong to another
+     * position, so they are forgotten.
+     *
+     * @param board Board to overwrite
+     * @param p1Word P1 word
+     * @param p2Word P2 word
+     * @param deal Dealt cards
+     */
+    public static void restore(final Board board, final long p1Word, final long p2Word, final Card[] deal) {
+        restorePlayer(board, Player.P1, p1Word, deal);
+        restorePlayer(board, Player.P2, p2Word, deal);
+
+        boolean gameOver = ((p1Word >>> GAME_OVER_SHIFT) & 1L) != 0;
+        Player gameWinner = PLAYERS[(int) ((p1Word >>> GAME_WINNER_SHIFT) & 1L)];
+
+        board.setCurrentPlayer(PLAYERS[(int) ((p1Word >>> CURRENT_PLAYER_SHIFT) & 1L)]);
+        board.setGameOver(gameOver);
+        board.setGameWinner(gameOver ? Optional.of(gameWinner) : Optional.empty());
+        board.refreshHashKey();
+        board.clearUndoHistory();
+    }
+
+    private static long getPlayerWord(final Board board, final Player player, final Card[] deal) {
+        List<Card> cards = board.getCards(player);
+
+        long word = toSquareMask(board.getKingMask(player));
+        word |= toSquareMask(board.getPawnMask(player)) << PAWNS_SHIFT;
+        word |= (long) getSlot(deal, cards.get(0)) << CARDS_SHIFT;
+        word |= (long) getSlot(deal, cards.get(1)) << (CARDS_SHIFT + SLOT_BITS);
+        word |= (long) getSlot(deal, board.getUpcomingCard(player)) << (CARDS_SHIFT + 2 * SLOT_BITS);
+
+        return word;
+    }
+
+    private static void restorePlayer(final Board board, final Player player, final long word, final Card[] deal) {
+        int kingMask = toBoardMask(word);
+        int pawnMask = toBoardMask(word >>> PAWNS_SHIFT);
+
+        if (player == Player.P1) {
+            board.setP1King(kingMask);
+            board.setP1Pawns(pawnMask);
+        } else {
+            board.setP2King(kingMask);
+            board.setP2Pawns(pawnMask);
+        }
+
+        List<Card> cards = board.getCards(player);
+        cards.set(0, getCard(deal, (int) (word >>> CARDS_SHIFT) & SLOT_MASK));
+        cards.set(1, getCard(deal, (int) (word >>> (CARDS_SHIFT + SLOT_BITS)) & SLOT_MASK));
+        board.setUpcomingCard(player, getCard(deal, (int) (word >>> (CARDS_SHIFT + 2 * SLOT_BITS)) & SLOT_MASK));
+    }
+
+    private static long toSquareMask(final int boardMask) {
+        return (boardMask >>> SQUARE_MASK_SHIFT) & SQUARE_MASK;
+    }
+
+    private static int toBoardMask(final long word) {
+        return (int) ((word & SQUARE_MASK) << SQUARE_MASK_SHIFT);
+    }
+
+    private static int getSlot(final Card[] deal, final Card card) {
+        if (card == Card.EMPTY) {
+            return EMPTY_SLOT;
+        }
+
+        for (int slot = 0; slot < deal.length; slot++) {
+            if (deal[slot] == card) {
+                return slot;
+            }
+        }
+
+        throw new IllegalArgumentException("Card = " + card + " not in deal = " + Arrays.toString(deal));
+    }
+
+    private static Card getCard(final Card[] deal, final int slot) {
+        return slot == EMPTY_SLOT ? Card.EMPTY : deal[slot];
+    }
+}
@@ -0,0 +1,109 @@
+package com.chesstama.backend.engine;
+
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Zobrist keys used to compute 64-bit position hashes.
+ * Reference : https://en.wikipedia.org/wiki/Zobrist_hashing
+ *
+ * Keys are generated from a fixed seed so that hashes are stable across runs. Keys of Card.EMPTY are 0, so an
+ * empty upcoming card does not contribute to the hash.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5EED_C4E5_57A4_A11DL;
+
+    private static final int PLAYERS = Player.values().length;
+    private static final int PIECE_TYPES = PieceType.values().length;
+    private static final int CARDS = Card.values().length;
+
+    // [player][piece type][square]
+    private static final long[] PIECE_KEYS = new long[PLAYERS * PIECE_TYPES * Board.MAX_SQUARES];
+
+    // [player][card]
+    private static final long[] CARD_KEYS = new long[PLAYERS * CARDS];
+
+    // [player][card]
+    private static final long[] UPCOMING_CARD_KEYS = new long[PLAYERS * CARDS];
+
+    private static final long P2_TO_MOVE_KEY;
+
+    static {
+        Random random = new Random(SEED);
+
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+
+        for (int i = 0; i < CARD_KEYS.length; i++) {
+            boolean isEmpty = i % CARDS == Card.EMPTY.ordinal();
+            CARD_KEYS[i] = isEmpty ? 0L : random.nextLong();
+            UPCOMING_CARD_KEYS[i] = isEmpty ? 0L : random.nextLong();
+        }
+
+        P2_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long getPieceKey(final Player player, final PieceType pieceType, final int pos) {
+        return PIECE_KEYS[(player.ordinal() * PIECE_TYPES + pieceType.ordinal()) * Board.MAX_SQUARES + pos];
+    }
+
+    /**
+     * @param player Player
+     * @param pieceType Piece Type
+     * @param mask Board mask of the pieces
+     * @return Combined key of all the pieces in mask
+     */
+    public static long getPiecesKey(final Player player, final PieceType pieceType, final int mask) {
+        long key = 0L;
+        int pieces = mask;
+
+        while (pieces != 0) {
+            key ^= getPieceKey(player, pieceType, BoardUtil.getSquareFromMask(pieces));
+            pieces &= pieces - 1;
+        }
+
+        return key;
+    }
+
+    public static long getCardKey(final Player player, final Card card) {
+        return CARD_KEYS[player.ordinal() * CARDS + card.ordinal()];
+    }
+
+    public static long getUpcomingCardKey(final Player player, final Card card) {
+        return UPCOMING_CARD_KEYS[player.ordinal() * CARDS + card.ordinal()];
+    }
+
+    public static long getCurrentPlayerKey(final Player player) {
+        return player == Player.P2 ? P2_TO_MOVE_KEY : 0L;
+    }
+
+    /**
+     * Computes the hash key of board from scratch.
+     *
+     * @param board Board
+     * @return Hash key
+     */
+    public static long computeHashKey(final Board board) {
+        long key = getCurrentPlayerKey(board.getCurrentPlayer());
+
+        for (Player player : Player.values()) {
+            key ^= getPiecesKey(player, PieceType.KING, board.getKingMask(player));
+            key ^= getPiecesKey(player, PieceType.PAWN, board.getPawnMask(player));
+
+            List<Card> cards = board.getCards(player);
+            for (Card card : cards) {
+                key ^= getCardKey(player, card);
+            }
+
+            key ^= getUpcomingCardKey(player, board.getUpcomingCard(player));
+        }
+
+        return key;
+    }
+}
@@ -0,0 +1,238 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Piece-square and king home distance tables of a deal, i.e. the five cards of a game. Cards only rotate between the
+ * hands of the players, so the moves available during a game are known from its first position.
+ *
+ * The value of a square is the number of squares reached from it with any card of the deal. The king home distance
+ * is the number of moves the king of a player needs to reach the opponent king home from a square, holding a given
+ * hand, found by a shortest path search over (square, hand). After playing a card the player receives one of the
+ * three cards it did not hold, the opponent choosing which one is not modelled, so distances are lower bounds.
+ *
+ * Tables are immutable and shared by all boards of a deal through an LRU cache.
+ */
+public final class DealTables {
+    public static final int MAX_CACHED_DEALS = 64;
+
+    // Distances from this one on are not scored
+    public static final int KING_HOME_HORIZON = 4;
+    public static final int UNREACHABLE = Board.MAX_SQUARES;
+
+    private static final int PLAYERS = Player.values().length;
+    private static final int CARDS = Card.values().length;
+
+    private static final LoadingCache<Integer, DealTables> DEAL_TABLES = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_DEALS)
+        .concurrencyLevel(1)
+        .build(CacheLoader.from(DealTables::new));
+
+    private final Card[] deal;
+    // Index of every card in the deal, -1 for the cards out of it
+    private final int[] dealIndexes;
+    // [player][square]
+    private final int[] squareValues;
+    // [player][first card][second card][square], by deal index
+    private final int[] kingHomeDistances;
+
+    private DealTables(final int dealMask) {
+        this.deal = Arrays.stream(Card.values())
+                          .filter(card -> (dealMask & 1 << card.ordinal()) != 0)
+                          .toArray(Card[]::new);
+        this.dealIndexes = new int[CARDS];
+        Arrays.fill(dealIndexes, -1);
+        for (int i = 0; i < deal.length; i++) {
+            dealIndexes[deal[i].ordinal()] = i;
+        }
+
+        this.squareValues = computeSquareValues();
+        this.kingHomeDistances = computeKingHomeDistances();
+    }
+
+    /**
+     * @param board Board
+     * @return Tables of the deal of board, from the cards in the hands and the upcoming cards of both players
+     */
+    public static DealTables forBoard(final Board board) {
+        int dealMask = 0;
+        for (Player player : Player.values()) {
+            for (Card card : board.getCards(player)) {
+                dealMask |= 1 << card.ordinal();
+            }
+            dealMask |= 1 << board.getUpcomingCard(player).ordinal();
+        }
+
+        return DEAL_TABLES.getUnchecked(dealMask & ~(1 << Card.EMPTY.ordinal()));
+    }
+
+    /**
+     * @param player Player
+     * @param square 1D board position
+     * @return Number of squares a piece of player reaches from square with any card of the deal
+     */
+    public int getSquareValue(final Player player, final int square) {
+        return squareValues[player.ordinal() * Board.MAX_SQUARES + square];
+    }
+
+    /**
+     * @param player Player
+     * @param pawnMask Board mask of the pawns of player
+     * @return Sum of the square values of the pawns
+     */
+    public int getPawnSquareValue(final Player player, final int pawnMask) {
+        int value = 0;
+
+        for (int pawns = pawnMask; pawns != 0; pawns &= pawns - 1) {
+            value += getSquareValue(player, BoardUtil.getSquareFromMask(pawns & -pawns));
+        }
+
+        return value;
+    }
+
+    /**
+     * @param player Player
+     * @param firstCard Card in the hand of player
+     * @param secondCard Other card in the hand of player
+     * @param square 1D board position of the king of player
+     * @return Lower bound of the moves the king needs to reach the opponent king home, UNREACHABLE if it never does
+     */
+    public int getKingHomeDistance(final Player player, final Card firstCard, final Card secondCard, final int square) {
+        int first = dealIndexes[firstCard.ordinal()];
+        int second = dealIndexes[secondCard.ordinal()];
+
+        return first < 0 || second < 0
+            ? UNREACHABLE
+            : kingHomeDistances[getDistanceIndex(player, first, second, square)];
+    }
+
+    /**
+     * @param board Board
+     * @param player Player
+     * @return Moves the king of player is ahead of KING_HOME_HORIZON to reach the opponent king home, 0 if it is not
+     */
+    public int getKingHomeProximity(final Board board, final Player player) {
+        int king = board.getKingMask(player);
+        List<Card> cards = board.getCards(player);
+        if (king == 0 || cards.size() < 2) {
+            return 0;
+        }
+
+        int distance = getKingHomeDistance(player, cards.get(0), cards.get(1), BoardUtil.getSquareFromMask(king));
+
+        return Math.max(0, KING_HOME_HORIZON - distance);
+    }
+
+    private int getDistanceIndex(final Player player, final int first, final int second, final int square) {
+        return ((player.ordinal() * deal.length + first) * deal.length + second) * Board.MAX_SQUARES + square;
+    }
+
+    private int[] computeSquareValues() {
+        int[] values = new int[PLAYERS * Board.MAX_SQUARES];
+
+        for (Player player : Player.values()) {
+            for (int square = 0; square < Board.MAX_SQUARES; square++) {
+                int reach = 0;
+                for (Card card : deal) {
+                    reach |= card.getDestinationMask(player, square);
+                }
+
+                values[player.ordinal() * Board.MAX_SQUARES + square] = Integer.bitCount(reach);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Relaxes the distances of every (square, hand) until none improves, every move costs one
+     */
+    private int[] computeKingHomeDistances() {
+        int[] distances = new int[PLAYERS * deal.length * deal.length * Board.MAX_SQUARES];
+        Arrays.fill(distances, UNREACHABLE);
+
+        for (Player player : Player.values()) {
+            int kingHome = BoardUtil.getSquareFromMask(Board.getKingSlotMask(player.getOpponent()));
+
+            for (int first = 0; first < deal.length; first++) {
+                for (int second = 0; second < deal.length; second++) {
+                    distances[getDistanceIndex(player, first, second, kingHome)] = 0;
+                }
+            }
+
+            boolean isImproved = true;
+            while (isImproved) {
+                isImproved = false;
+
+                for (int first = 0; first < deal.length; first++) {
+                    for (int second = first + 1; second < deal.length; second++) {
+                        for (int square = 0; square < Board.MAX_SQUARES; square++) {
+                            isImproved |= relax(distances, player, first, second, square);
+                        }
+                    }
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * @return true if the distance of the king of player on square, holding the first and second cards, improved
+     */
+    private boolean relax(final int[] distances,
+                          final Player player,
+                          final int first,
+                          final int second,
+                          final int square) {
+        int index = getDistanceIndex(player, first, second, square);
+        int distance = Math.min(getDistanceAfterPlaying(distances, player, first, second, square),
+            getDistanceAfterPlaying(distances, player, second, first, square));
+
+        if (distance >= distances[index]) {
+            return false;
+        }
+
+        // Hands are unordered
+        distances[index] = distance;
+        distances[getDistanceIndex(player, second, first, square)] = distance;
+
+        return true;
+    }
+
+    /**
+     * @param played Deal index of the card played from square
+     * @param kept Deal index of the other card in hand
+     * @return Best distance known after playing the card, plus the move
+     */
+    private int getDistanceAfterPlaying(final int[] distances,
+                                        final Player player,
+                                        final int played,
+                                        final int kept,
+                                        final int square) {
+        int distance = UNREACHABLE;
+
+        for (int destinations = deal[played].getDestinationMask(player, square); destinations != 0;
+             destinations &= destinations - 1) {
+            int destination = BoardUtil.getSquareFromMask(destinations & -destinations);
+
+            // The played card goes to the opponent, any card out of the hand may come back
+            for (int received = 0; received < deal.length; received++) {
+                if (received != played && received != kept) {
+                    distance = Math.min(distance, distances[getDistanceIndex(player, kept, received, destination)] + 1);
+                }
+            }
+        }
+
+        return distance;
+    }
+}
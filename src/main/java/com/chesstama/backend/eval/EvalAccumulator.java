@@ -0,0 +1,339 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Partial sums of the {@link Evaluator} terms, kept along the moves made by {@link Board#makeMove(int)} and
+ * {@link Board#unmakeMove()}, so that evaluating a board only weighs a few counts.
+ *
+ * For every player the accumulator holds two groups of terms, computed on demand and kept until a move changes them:
+ * 1) Threats, the hits of its pieces on the opponent king, on the opponent king home and on the opponent pawns, found
+ * with reverse reach masks, along with its terms from the {@link DealTables}
+ * 2) Reach, the squares reached by its pieces, for the mobility
+ *
+ * Playing a card changes the hand of the mover, so both groups of the mover are dropped after every move. The hand
+ * and the pieces of the opponent do not change unless a pawn is captured, so only the hits on the moved piece are
+ * updated for the opponent. {@link #evaluate(Board, Player, long, long)} leaves the reach out when the mobility
+ * cannot bring the score into the window. The forward and reverse reach masks of every hand of two cards are
+ * precomputed, so that every piece or target costs a single lookup.
+ *
+ * The state prior to every move is pushed on a stack and popped by unmakeMove, as the undo records of the board.
+ */
+public final class EvalAccumulator {
+    private static final int PLAYERS = Player.values().length;
+    private static final int INITIAL_DEPTH = 64;
+
+    // [player][term]
+    private static final int VALID_GROUPS = 0;
+    private static final int REACH = 1;
+    private static final int KING_HITS = 2;
+    private static final int KING_HOME_HITS = 3;
+    private static final int PAWN_HITS = 4;
+    private static final int PAWN_SQUARES = 5;
+    private static final int KING_HOME_PROXIMITY = 6;
+    private static final int TERMS = 7;
+    private static final int STATE_SIZE = PLAYERS * TERMS;
+
+    // Groups of terms, set in VALID_GROUPS once computed
+    private static final int THREAT_GROUP = 1;
+    private static final int REACH_GROUP = 2;
+    private static final int ALL_GROUPS = THREAT_GROUP | REACH_GROUP;
+
+    private static final int CARDS = Card.values().length;
+
+    // Forward and reverse reach masks of the hands, indexed by [first card][second card][player][square]
+    private static final int[] HAND_REACH_MASKS = computeHandReachMasks(false);
+    private static final int[] HAND_REVERSE_REACH_MASKS = computeHandReachMasks(true);
+
+    private final int[] state;
+    private int[] stateStack;
+    private int depth;
+    // The deal never changes along the moves of a board, looked up on first use as refresh is called on every partial
+    // update of a board being set up
+    private DealTables dealTables;
+
+    public EvalAccumulator() {
+        this.state = new int[STATE_SIZE];
+        this.stateStack = new int[INITIAL_DEPTH * STATE_SIZE];
+    }
+
+    /**
+     * @return Copy of the accumulator along with its saved states
+     */
+    public EvalAccumulator copy() {
+        EvalAccumulator accumulator = new EvalAccumulator();
+        System.arraycopy(state, 0, accumulator.state, 0, STATE_SIZE);
+        accumulator.stateStack = Arrays.copyOf(stateStack, stateStack.length);
+        accumulator.depth = depth;
+        accumulator.dealTables = dealTables;
+
+        return accumulator;
+    }
+
+    /**
+     * Same as {@link Evaluator#evaluate(Board, Player)} for a board which is not over
+     *
+     * @param board Board the accumulator belongs to
+     * @param player Player to evaluate the board for
+     * @return Total score
+     */
+    public long evaluate(final Board board, final Player player) {
+        return getThreatScore(board, player) + getMobilityScore(board, player);
+    }
+
+    /**
+     * Same as {@link Evaluator#evaluate(Board, Player, long, long)} for a board which is not over
+     *
+     * @param board Board the accumulator belongs to
+     * @param player Player to evaluate the board for
+     * @param alpha Score at or below which an upper bound is enough
+     * @param beta Score at or above which a lower bound is enough
+     * @return Total score if within (alpha, beta), else a bound of it on the same side of the window
+     */
+    public long evaluate(final Board board, final Player player, final long alpha, final long beta) {
+        long score = getThreatScore(board, player);
+
+        // Mobility only adds to the score, up to the squares free of the pieces of player
+        if (score >= beta) {
+            return score;
+        }
+
+        long maxScore = score + EvalRule.UNIQUE_MOVE.getScore()
+            * (Board.MAX_SQUARES - Integer.bitCount(board.getPieceMask(player)));
+        if (maxScore <= alpha) {
+            return maxScore;
+        }
+
+        return score + getMobilityScore(board, player);
+    }
+
+    /**
+     * Drops the terms of both players, to be computed again from board
+     *
+     * @param board Board
+     */
+    public void refresh(final Board board) {
+        dealTables = null;
+        state[Player.P1.ordinal() * TERMS + VALID_GROUPS] = 0;
+        state[Player.P2.ordinal() * TERMS + VALID_GROUPS] = 0;
+    }
+
+    /**
+     * Saves the current state, to be restored by {@link #pop()}
+     */
+    public void push() {
+        int index = depth * STATE_SIZE;
+        if (index == stateStack.length) {
+            stateStack = Arrays.copyOf(stateStack, stateStack.length * 2);
+        }
+
+        System.arraycopy(state, 0, stateStack, index, STATE_SIZE);
+        depth++;
+    }
+
+    /**
+     * Restores the state saved by the last {@link #push()}
+     */
+    public void pop() {
+        depth--;
+        System.arraycopy(stateStack, depth * STATE_SIZE, state, 0, STATE_SIZE);
+    }
+
+    /**
+     * Drops the states saved by {@link #push()}, along with the undo records of the board
+     */
+    public void clearSavedStates() {
+        depth = 0;
+    }
+
+    /**
+     * Updates the terms after a move which did not end the game
+     *
+     * @param board Board the move was made on
+     * @param mover Player who made the move
+     * @param pieceType Type of the moved piece
+     * @param from 1D board position the piece moved from
+     * @param to 1D board position the piece moved to
+     * @param isCapture true if the move captured a pawn
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public void update(final Board board,
+                       final Player mover,
+                       final PieceType pieceType,
+                       final int from,
+                       final int to,
+                       final boolean isCapture) {
+        Player opponent = mover.getOpponent();
+        int index = opponent.ordinal() * TERMS;
+
+        state[mover.ordinal() * TERMS + VALID_GROUPS] = 0;
+
+        // The squares reached by the opponent change along with its pieces
+        if (isCapture) {
+            state[index + VALID_GROUPS] = 0;
+            return;
+        }
+
+        if ((state[index + VALID_GROUPS] & THREAT_GROUP) == 0) {
+            return;
+        }
+
+        // The pieces of the opponent which hit the moved piece now hit it on its new square
+        int hand = getHandIndex(board, opponent);
+        int attackers = board.getPieceMask(opponent);
+        int hits = Integer.bitCount(HAND_REVERSE_REACH_MASKS[hand + to] & attackers)
+            - Integer.bitCount(HAND_REVERSE_REACH_MASKS[hand + from] & attackers);
+
+        state[index + (pieceType == PieceType.KING ? KING_HITS : PAWN_HITS)] += hits;
+    }
+
+    /**
+     * @return true if all the terms match the ones computed from scratch for board
+     */
+    public boolean isConsistent(final Board board) {
+        EvalAccumulator rebuilt = new EvalAccumulator();
+        rebuilt.refresh(board);
+
+        for (Player player : Player.values()) {
+            computeGroups(board, player, ALL_GROUPS);
+            rebuilt.computeGroups(board, player, ALL_GROUPS);
+        }
+
+        return Arrays.equals(state, rebuilt.state);
+    }
+
+    /**
+     * @return Score of all the terms but the mobility
+     */
+    private long getThreatScore(final Board board, final Player player) {
+        Player opponent = player.getOpponent();
+        computeGroups(board, player, THREAT_GROUP);
+        computeGroups(board, opponent, THREAT_GROUP);
+
+        int own = player.ordinal() * TERMS;
+        int other = opponent.ordinal() * TERMS;
+
+        return EvalRule.OPP_KING_CAPTURE.getScore() * state[own + KING_HITS]
+            + EvalRule.OPP_KING_HOME.getScore() * state[own + KING_HOME_HITS]
+            + EvalRule.OPP_PAWN_CAPTURE.getScore() * state[own + PAWN_HITS]
+            + EvalRule.PAWN_SQUARE.getScore() * state[own + PAWN_SQUARES]
+            + EvalRule.OPP_KING_HOME_PROXIMITY.getScore() * state[own + KING_HOME_PROXIMITY]
+            + EvalRule.KING_CAPTURE.getScore() * state[other + KING_HITS]
+            + EvalRule.KING_HOME.getScore() * state[other + KING_HOME_HITS]
+            + EvalRule.PAWN_CAPTURE.getScore() * state[other + PAWN_HITS]
+            + EvalRule.KING_HOME_PROXIMITY.getScore() * state[other + KING_HOME_PROXIMITY];
+    }
+
+    private long getMobilityScore(final Board board, final Player player) {
+        computeGroups(board, player, REACH_GROUP);
+
+        return EvalRule.UNIQUE_MOVE.getScore() * Integer.bitCount(state[player.ordinal() * TERMS + REACH]);
+    }
+
+    private void computeGroups(final Board board, final Player player, final int groups) {
+        int index = player.ordinal() * TERMS;
+        int missingGroups = groups & ~state[index + VALID_GROUPS];
+
+        if ((missingGroups & THREAT_GROUP) != 0) {
+            computeThreats(board, player, index);
+        }
+
+        if ((missingGroups & REACH_GROUP) != 0) {
+            computeReach(board, player, index);
+        }
+
+        state[index + VALID_GROUPS] |= missingGroups;
+    }
+
+    /**
+     * Hits are counted from their targets, squares of the opponent are never excluded from the reach of a piece
+     */
+    private void computeThreats(final Board board, final Player player, final int index) {
+        Player opponent = player.getOpponent();
+        int hand = getHandIndex(board, player);
+        int pieces = board.getPieceMask(player);
+        int kingHome = Board.getKingSlotMask(opponent) & ~pieces;
+        int pawnHits = 0;
+
+        for (int pawns = board.getPawnMask(opponent); pawns != 0; pawns &= pawns - 1) {
+            pawnHits += countHits(hand, pawns & -pawns, pieces);
+        }
+
+        state[index + KING_HITS] = countHits(hand, board.getKingMask(opponent), pieces);
+        state[index + KING_HOME_HITS] = countHits(hand, kingHome, board.getKingMask(player));
+        state[index + PAWN_HITS] = pawnHits;
+        if (dealTables == null) {
+            dealTables = DealTables.forBoard(board);
+        }
+        state[index + PAWN_SQUARES] = dealTables.getPawnSquareValue(player, board.getPawnMask(player));
+        state[index + KING_HOME_PROXIMITY] = dealTables.getKingHomeProximity(board, player);
+    }
+
+    private void computeReach(final Board board, final Player player, final int index) {
+        int hand = getHandIndex(board, player);
+        int pieces = board.getPieceMask(player);
+        int reach = 0;
+
+        for (int remaining = pieces; remaining != 0; remaining &= remaining - 1) {
+            reach |= HAND_REACH_MASKS[hand + BoardUtil.getSquareFromMask(remaining & -remaining)];
+        }
+
+        state[index + REACH] = reach & ~pieces;
+    }
+
+    /**
+     * @param hand Hand index of player, see {@link #getHandIndex(Board, Player)}
+     * @param targetMask Board mask of at most one square
+     * @param attackers Pieces of player to consider
+     * @return Number of attackers which reach the target with a card in the hand of player
+     */
+    private static int countHits(final int hand, final int targetMask, final int attackers) {
+        return targetMask == 0
+            ? 0
+            : Integer.bitCount(HAND_REVERSE_REACH_MASKS[hand + BoardUtil.getSquareFromMask(targetMask)] & attackers);
+    }
+
+    /**
+     * @return Index of the square 0 in the hand reach masks of the cards of player
+     */
+    private static int getHandIndex(final Board board, final Player player) {
+        List<Card> cards = board.getCards(player);
+
+        return getHandIndex(cards.get(0), cards.get(1), player);
+    }
+
+    private static int getHandIndex(final Card first, final Card second, final Player player) {
+        return ((first.ordinal() * CARDS + second.ordinal()) * PLAYERS + player.ordinal()) * Board.MAX_SQUARES;
+    }
+
+    /**
+     * @param isReverse true for the squares from which a hand reaches a square, false for the ones reached from it
+     */
+    private static int[] computeHandReachMasks(final boolean isReverse) {
+        int[] masks = new int[CARDS * CARDS * PLAYERS * Board.MAX_SQUARES];
+
+        for (Card first : Card.values()) {
+            for (Card second : Card.values()) {
+                for (Player player : Player.values()) {
+                    int hand = getHandIndex(first, second, player);
+
+                    for (int square = 0; square < Board.MAX_SQUARES; square++) {
+                        masks[hand + square] = isReverse
+                            ? ThreatDetector.getReachMask(player, first, square)
+                                | ThreatDetector.getReachMask(player, second, square)
+                            : first.getDestinationMask(player, square) | second.getDestinationMask(player, square);
+                    }
+                }
+            }
+        }
+
+        return masks;
+    }
+}
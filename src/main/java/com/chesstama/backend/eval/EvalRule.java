@@ -7,6 +7,10 @@ public enum EvalRule {
     OPP_KING_HOME(BASE_SCORE * 100_000),
     OPP_PAWN_CAPTURE(BASE_SCORE * 20_000),
     UNIQUE_MOVE(BASE_SCORE * 50),
+    // Terms of the DealTables, not tuned yet so they only score with -Dchesstama.eval.dealTerms=true
+    PAWN_SQUARE(getDealTermScore(BASE_SCORE * 5)),
+    OPP_KING_HOME_PROXIMITY(getDealTermScore(BASE_SCORE * 500)),
+    KING_HOME_PROXIMITY(getDealTermScore(BASE_SCORE * -750)),
     KING_CAPTURE(BASE_SCORE * -150_000),
     KING_HOME(BASE_SCORE * -150_000),
     PAWN_CAPTURE(BASE_SCORE * -25_000),
@@ -15,6 +19,8 @@ public enum EvalRule {
     MAX_SCORE(BASE_SCORE * Long.MAX_VALUE),
     MIN_SCORE(BASE_SCORE * Long.MIN_VALUE);
 
+    public static final String DEAL_TERMS_PROPERTY = "chesstama.eval.dealTerms";
+
     private final long score;
 
     EvalRule(final long score) {
@@ -25,6 +31,10 @@ public enum EvalRule {
         return score;
     }
 
+    private static long getDealTermScore(final long score) {
+        return Boolean.getBoolean(DEAL_TERMS_PROPERTY) ? score : 0;
+    }
+
     @Override
     public String toString() {
         return "EvalRule{" +
@@ -0,0 +1,139 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Player;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Direct-mapped cache of {@link Evaluator#evaluate(Board, Player)}, keyed by {@link Board#getHashKey()}. The same
+ * positions are reached through different move orders, so most leaves of a search have been evaluated before.
+ *
+ * Every slot holds the key XOR-ed with the score and the score, in two primitive arrays. As in the
+ * {@link TranspositionTable}, a slot torn by concurrent writers fails the key check, so the cache can be shared by
+ * several search threads without locking. A new evaluation always replaces the slot.
+ */
+public class EvaluationCache {
+    public static final int DEFAULT_SIZE_IN_MB = 4;
+
+    // A search evaluates about 4 times more leaves every ply, 1 MB holds the leaves of a search to depth 6
+    private static final int MIN_SIZE_IN_MB = 1;
+    private static final int MIN_SIZE_DEPTH = 6;
+
+    private static final int BYTES_PER_MB = 1024 * 1024;
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+    // Evaluations depend on the player evaluated for, so entries of both players must not mix
+    private static final long P2_PERSPECTIVE_KEY = 0xBB67_AE85_84CA_A73BL;
+
+    private final long[] checks;
+    private final long[] scores;
+    private final int indexMask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public EvaluationCache() {
+        this(DEFAULT_SIZE_IN_MB);
+    }
+
+    /**
+     * @param sizeInMb Cache size in MB, rounded down to a power of 2 number of entries
+     */
+    public EvaluationCache(final int sizeInMb) {
+        int entries = Integer.highestOneBit(Math.max(1, (int) Math.min(Integer.MAX_VALUE,
+            (long) sizeInMb * BYTES_PER_MB / BYTES_PER_ENTRY)));
+
+        this.checks = new long[entries];
+        this.scores = new long[entries];
+        this.indexMask = entries - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * @param maxDepth Depth of the search the cache is for
+     * @return Cache sized for the leaves of a search to maxDepth, up to DEFAULT_SIZE_IN_MB
+     */
+    public static EvaluationCache forDepth(final int maxDepth) {
+        int doublings = 2 * (Math.min(maxDepth, TranspositionTable.MAX_DEPTH) - MIN_SIZE_DEPTH);
+        int sizeInMb = doublings <= 0 ? MIN_SIZE_IN_MB
+            : (int) Math.min(DEFAULT_SIZE_IN_MB, (long) MIN_SIZE_IN_MB << Math.min(doublings, Integer.SIZE));
+
+        return new EvaluationCache(sizeInMb);
+    }
+
+    /**
+     * Same as {@link Evaluator#evaluate(Board, Player)}, from the cache if board was evaluated for player before
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @return Total score
+     */
+    public long evaluate(final Board board, final Player player) {
+        return evaluate(board, player, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link Evaluator#evaluate(Board, Player, long, long)}, from the cache if board was evaluated for player
+     * before. Only scores within the window are known to be exact, bounds are not cached.
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @param alpha Score at or below which an upper bound is enough
+     * @param beta Score at or above which a lower bound is enough
+     * @return Total score if within (alpha, beta), else a bound of it on the same side of the window
+     */
+    public long evaluate(final Board board, final Player player, final long alpha, final long beta) {
+        if (board.isGameOver()) {
+            return Evaluator.evaluate(board, player);
+        }
+
+        long key = player == Player.P2 ? board.getHashKey() ^ P2_PERSPECTIVE_KEY : board.getHashKey();
+        int index = (int) key & indexMask;
+        long score = scores[index];
+
+        if ((checks[index] ^ score) == key) {
+            hits.increment();
+            return score;
+        }
+
+        misses.increment();
+        score = Evaluator.evaluate(board, player, alpha, beta);
+
+        if (score > alpha && score < beta) {
+            scores[index] = score;
+            checks[index] = key ^ score;
+        }
+
+        return score;
+    }
+
+    public int getCapacity() {
+        return indexMask + 1;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        Arrays.fill(checks, 0L);
+        Arrays.fill(scores, 0L);
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationCache{" +
+                "capacity=" + getCapacity() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                '}';
+    }
+}
@@ -3,54 +3,173 @@ package com.chesstama.backend.eval;
 import com.chesstama.backend.engine.Board;
 import com.chesstama.backend.engine.Card;
 import com.chesstama.backend.engine.Player;
-import com.chesstama.backend.engine.Position;
-import com.google.common.collect.ImmutableSet;
-import lombok.extern.slf4j.Slf4j;
+import com.chesstama.backend.util.BoardUtil;
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-@SuppressWarnings({"Duplicates"})
-@Slf4j
+/**
+ * Evaluates a board on the board masks, the squares reached by a piece are the union of the destination masks of the
+ * cards in hand, without the squares of the pieces of its own player. Every reached square scores once per piece.
+ *
+ * {@link #evaluate(Board, Player)} weighs the partial sums of the {@link EvalAccumulator} of the board.
+ * {@link #evaluate(Board, Player, long, long)} is the one used by the search, the mobility is left out when it cannot
+ * bring the score into the alpha-beta window. {@link #explain(Board, Player)} computes the evaluation from scratch and
+ * also breaks the total down by {@link EvalRule}, for diagnostics.
+ *
+ * Running with -Dchesstama.eval.verify=true checks every incremental evaluation against the one from scratch.
+ */
 public final class Evaluator {
     public static final int BASE_SCORE = 1;
 
+    private static final boolean VERIFY_INCREMENTAL = Boolean.getBoolean("chesstama.eval.verify");
+
     private Evaluator() {
     }
 
-    public static Score getBoardValue(final Board board) {
-        return getBoardValue(board, false);
+    /**
+     * Evaluates the board from the point of view of player
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @return Total score, same as the total of {@link #explain(Board, Player)}
+     */
+    public static long evaluate(final Board board, final Player player) {
+        if (board.isGameOver()) {
+            return board.getGameWinner().get() == player
+                ? EvalRule.GAME_WON.getScore()
+                : EvalRule.GAME_LOST.getScore();
+        }
+
+        long score = board.getEvalAccumulator().evaluate(board, player);
+
+        if (VERIFY_INCREMENTAL) {
+            verify(board, player, score, score, score);
+        }
+
+        return score;
     }
 
-    public static Score getBoardValue(final Board board, final boolean toggleCurrentPlayerForEval) {
+    /**
+     * Evaluates the board from the point of view of player, only as precisely as the alpha-beta window requires.
+     * The terms deciding captures and king home moves come first, the mobility is only added when its largest
+     * possible score can bring the total into the window.
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @param alpha Score at or below which an upper bound is enough
+     * @param beta Score at or above which a lower bound is enough
+     * @return Total score if within (alpha, beta), an upper bound of it if at or below alpha, a lower bound of it if
+     * at or above beta
+     */
+    public static long evaluate(final Board board, final Player player, final long alpha, final long beta) {
         if (board.isGameOver()) {
-            Player winner = board.getGameWinner().get();
-            return winner == board.getCurrentPlayer() ? Score.GAME_WON_SCORE : Score.GAME_LOST_SCORE;
+            return evaluate(board, player);
+        }
+
+        long score = board.getEvalAccumulator().evaluate(board, player, alpha, beta);
+
+        if (VERIFY_INCREMENTAL) {
+            verify(board, player, score, alpha, beta);
+        }
+
+        return score;
+    }
+
+    /**
+     * @throws IllegalStateException if the incremental score is not the one computed from scratch, or a bound of it
+     * outside of the window
+     */
+    private static void verify(final Board board,
+                               final Player player,
+                               final long score,
+                               final long alpha,
+                               final long beta) {
+        long expectedScore = evaluate(board, player, null);
+        boolean isValid = score <= alpha && expectedScore <= score
+            || score >= beta && expectedScore >= score
+            || score == expectedScore;
+
+        if (!isValid || !board.getEvalAccumulator().isConsistent(board)) {
+            throw new IllegalStateException(String.format("Incremental evaluation %d of %s for %s in (%d, %d) "
+                + "differs from %d", score, board, player, alpha, beta, expectedScore));
+        }
+    }
+
+    /**
+     * Evaluates the board from the point of view of player, along with the count of every rule
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @return Score
+     */
+    public static Score explain(final Board board, final Player player) {
+        if (board.isGameOver()) {
+            return board.getGameWinner().get() == player ? Score.GAME_WON_SCORE : Score.GAME_LOST_SCORE;
         }
 
-        if (toggleCurrentPlayerForEval) {
-            board.toggleCurrentPlayer();
+        Score score = new Score();
+        evaluate(board, player, score);
+
+        return score;
+    }
+
+    /**
+     * Explains the position at the end of a principal variation, board is not modified
+     *
+     * @param board Board
+     * @param moves Moves from board, e.g. {@link ScoreMoves#getMoves()}
+     * @param player Player to evaluate the board for
+     * @return Score
+     */
+    public static Score explain(final Board board, final List<Move> moves, final Player player) {
+        Board leaf = board.copy();
+        for (Move move : moves) {
+            leaf.makeMove(move);
         }
 
-        Score totalScore = new Score();
-        Set<Position> validMoves = getValidMoves(board);
-        Set<Position> validOpponentMoves = getValidMovesForOpponent(board);
+        return explain(leaf, player);
+    }
 
-        computeKingScore(board, validMoves, totalScore);
-        computePawnScore(board, validMoves, totalScore);
-        computeMobilityScore(board, validMoves, totalScore);
+    public static Score getBoardValue(final Board board) {
+        return getBoardValue(board, false);
+    }
 
-        computeOpponentKingScore(board, validOpponentMoves, totalScore);
-        computeOpponentPawnScore(board, validOpponentMoves, totalScore);
+    /**
+     * Same as {@link #explain(Board, Player)}
+     *
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @return Score
+     */
+    public static Score getBoardValue(final Board board, final Player player) {
+        return explain(board, player);
+    }
 
-        if (toggleCurrentPlayerForEval) {
-            board.toggleCurrentPlayer();
+    public static Score getBoardValue(final Board board, final boolean toggleCurrentPlayerForEval) {
+        if (board.isGameOver()) {
+            Player winner = board.getGameWinner().get();
+            return winner == board.getCurrentPlayer() ? Score.GAME_WON_SCORE : Score.GAME_LOST_SCORE;
         }
 
-        return totalScore;
+        // The board is evaluated for the other player without toggling it, so that it is never modified
+        Player player = toggleCurrentPlayerForEval
+            ? board.getCurrentPlayer().getOpponent()
+            : board.getCurrentPlayer();
+
+        return explain(board, player);
+    }
+
+    /**
+     * @param breakdown Score the rule counts are added to, null to only compute the total
+     * @return Total score
+     */
+    private static long evaluate(final Board board, final Player player, final Score breakdown) {
+        return computeKingScore(board, player, breakdown)
+            + computePawnScore(board, player, breakdown)
+            + computeMobilityScore(board, player, breakdown)
+            + computeOpponentKingScore(board, player, breakdown)
+            + computeOpponentPawnScore(board, player, breakdown)
+            + computeDealScore(board, player, breakdown);
     }
 
     /**
@@ -60,43 +179,15 @@ public final class Evaluator {
      *
      * compute opponent king threat score
      */
-    private static void computeOpponentKingScore(final Board board,
-                                                 final Set<Position> validOpponentMoves,
-                                                 final Score score) {
-        Player currentPlayer = board.getCurrentPlayer();
-        Player opponent = currentPlayer.getOpponent();
-
-        Position kingPos = board.getKingPosition(currentPlayer);
-        Position kingHome = currentPlayer == Player.P1 ? Board.P1_KING_SLOT : Board.P2_KING_SLOT;
-        Set<Position> pawnPositions = board.getPawnPositions(currentPlayer);
-
-        Position opponentKingPos = board.getKingPosition(opponent);
-        Set<Position> opponentPawnPositions = board.getPawnPositions(opponent);
-        Set<Position> opponentPiecePositions = new ImmutableSet.Builder<Position>()
-                .add(opponentKingPos)
-                .addAll(opponentPawnPositions)
-                .build();
-
-        // Opponent King
-        for (Position validMove : validOpponentMoves) {
-            Position potentialMovePos = opponentKingPos.add(validMove);
-
-            if (!isValidPosition(potentialMovePos, opponentPiecePositions)) {
-                continue;
-            }
-
-            if (potentialMovePos.equals(kingPos)) {
-                score.add(EvalRule.KING_CAPTURE);
-            }
-
-            if (potentialMovePos.equals(kingHome)) {
-                score.add(EvalRule.KING_HOME);
-            }
-
-            if (pawnPositions.contains(potentialMovePos)) {
-                score.add(EvalRule.PAWN_CAPTURE);
-            }
-        }
+    private static long computeOpponentKingScore(final Board board,
+                                                 final Player player,
+                                                 final Score breakdown) {
+        Player opponent = player.getOpponent();
+        int reachedSquares = getReachedSquares(board, opponent, board.getKingMask(opponent));
+
+        return addHits(breakdown, EvalRule.KING_CAPTURE, reachedSquares & board.getKingMask(player))
+            + addHits(breakdown, EvalRule.KING_HOME, reachedSquares & Board.getKingSlotMask(player))
+            + addHits(breakdown, EvalRule.PAWN_CAPTURE, reachedSquares & board.getPawnMask(player));
     }
 
     /**
@@ -105,70 +196,62 @@ public final class Evaluator {
      *
      * compute opponent pawn threat score
      */
-    private static void computeOpponentPawnScore(final Board board,
-                                                 final Set<Position> validOpponentMoves,
-                                                 final Score score) {
-        Player currentPlayer = board.getCurrentPlayer();
-        Player opponent = currentPlayer.getOpponent();
-
-        Position kingPos = board.getKingPosition(currentPlayer);
-        Set<Position> pawnPositions = board.getPawnPositions(currentPlayer);
-
-        Position opponentKingPos = board.getKingPosition(opponent);
-        Set<Position> opponentPawnPositions = board.getPawnPositions(opponent);
-        Set<Position> opponentPiecePositions = new ImmutableSet.Builder<Position>()
-                .add(opponentKingPos)
-                .addAll(opponentPawnPositions)
-                .build();
-
-        // Opponent Pawns
-        for (Position opponentPawnPosition : opponentPawnPositions) {
-            for (Position validMove : validOpponentMoves) {
-                Position potentialMovePos = opponentPawnPosition.add(validMove);
-
-                if (!isValidPosition(potentialMovePos, opponentPiecePositions)) {
-                    continue;
-                }
-
-                if (potentialMovePos.equals(kingPos)) {
-                    score.add(EvalRule.KING_CAPTURE);
-                }
-
-                if (pawnPositions.contains(potentialMovePos)) {
-                    score.add(EvalRule.PAWN_CAPTURE);
-                }
-            }
+    private static long computeOpponentPawnScore(final Board board,
+                                                 final Player player,
+                                                 final Score breakdown) {
+        Player opponent = player.getOpponent();
+        int kingCaptures = 0;
+        int pawnCaptures = 0;
+
+        for (int pawns = board.getPawnMask(opponent); pawns != 0; pawns &= pawns - 1) {
+            int reachedSquares = getReachedSquares(board, opponent, pawns & -pawns);
+
+            kingCaptures += Integer.bitCount(reachedSquares & board.getKingMask(player));
+            pawnCaptures += Integer.bitCount(reachedSquares & board.getPawnMask(player));
         }
+
+        return add(breakdown, EvalRule.KING_CAPTURE, kingCaptures)
+            + add(breakdown, EvalRule.PAWN_CAPTURE, pawnCaptures);
+    }
+
+    /**
+     * 1) Pawns on squares reached with many cards of the deal
+     * 2) King close to the opponent king home
+     * 3) Opponent king close to the king home
+     *
+     * compute score from the tables of the deal, see {@link DealTables}
+     */
+    private static long computeDealScore(final Board board,
+                                         final Player player,
+                                         final Score breakdown) {
+        DealTables dealTables = DealTables.forBoard(board);
+
+        return add(breakdown, EvalRule.PAWN_SQUARE, dealTables.getPawnSquareValue(player, board.getPawnMask(player)))
+            + add(breakdown, EvalRule.OPP_KING_HOME_PROXIMITY, dealTables.getKingHomeProximity(board, player))
+            + add(breakdown, EvalRule.KING_HOME_PROXIMITY,
+                dealTables.getKingHomeProximity(board, player.getOpponent()));
     }
 
     /**
      * compute score reflecting unique reachable positions on the board
      */
-    private static void computeMobilityScore(final Board board,
-                                             final Set<Position> validMoves,
-                                             final Score score) {
-        Player currentPlayer = board.getCurrentPlayer();
-
-        Set<Position> piecePositions = new ImmutableSet.Builder<Position>()
-            .add(board.getKingPosition(currentPlayer))
-            .addAll(board.getPawnPositions(currentPlayer))
-            .build();
-
-        Set<Position> uniqueValidMoves = new HashSet<>();
-
-        for (Position piecePosition : piecePositions) {
-            for (Position validMove : validMoves) {
-                Position potentialMovePos = piecePosition.add(validMove);
-
-                if (isValidPosition(potentialMovePos, piecePositions)) {
-                    uniqueValidMoves.add(potentialMovePos);
-                }
-            }
+    private static long computeMobilityScore(final Board board,
+                                             final Player player,
+                                             final Score breakdown) {
+        int reachedSquares = 0;
+
+        for (int pieces = board.getPieceMask(player); pieces != 0; pieces &= pieces - 1) {
+            reachedSquares |= getReachedSquares(board, player, pieces & -pieces);
         }
 
-        log.info("Unique Valid Moves = {}", uniqueValidMoves);
+        int uniqueMoves = Integer.bitCount(reachedSquares);
 
-        score.add(EvalRule.UNIQUE_MOVE, uniqueValidMoves.size());
+        // Counted even without any move
+        if (breakdown != null) {
+            breakdown.add(EvalRule.UNIQUE_MOVE, uniqueMoves);
+        }
+
+        return EvalRule.UNIQUE_MOVE.getScore() * uniqueMoves;
     }
 
     /**
@@ -178,42 +261,15 @@ public final class Evaluator {
      *
      * compute king's score reflecting above criteria
      */
-    private static void computeKingScore(final Board board,
-                                         final Set<Position> validMoves,
-                                         final Score score) {
-        Player currentPlayer = board.getCurrentPlayer();
-        Player opponent = currentPlayer.getOpponent();
-
-        Position kingPos = board.getKingPosition(currentPlayer);
-        Set<Position> pawnPositions = board.getPawnPositions(currentPlayer);
-        Set<Position> piecePositions = new ImmutableSet.Builder<Position>()
-                .add(kingPos)
-                .addAll(pawnPositions)
-                .build();
-
-        Position opponentKingPos = board.getKingPosition(opponent);
-        Position opponentKingHome = currentPlayer == Player.P1 ? Board.P2_KING_SLOT : Board.P1_KING_SLOT;
-        Set<Position> opponentPawnPositions = new HashSet<>(board.getPawnPositions(opponent));
-
-        for (Position validMove : validMoves) {
-            Position potentialMovePos = kingPos.add(validMove);
-
-            if (!isValidPosition(potentialMovePos, piecePositions)) {
-                continue;
-            }
-
-            if (potentialMovePos.equals(opponentKingPos)) {
-                score.add(EvalRule.OPP_KING_CAPTURE);
-            }
-
-            if (potentialMovePos.equals(opponentKingHome)) {
-                score.add(EvalRule.OPP_KING_HOME);
-            }
-
-            if (opponentPawnPositions.contains(potentialMovePos)) {
-                score.add(EvalRule.OPP_PAWN_CAPTURE);
-            }
-        }
+    private static long computeKingScore(final Board board,
+                                         final Player player,
+                                         final Score breakdown) {
+        Player opponent = player.getOpponent();
+        int reachedSquares = getReachedSquares(board, player, board.getKingMask(player));
+
+        return addHits(breakdown, EvalRule.OPP_KING_CAPTURE, reachedSquares & board.getKingMask(opponent))
+            + addHits(breakdown, EvalRule.OPP_KING_HOME, reachedSquares & Board.getKingSlotMask(opponent))
+            + addHits(breakdown, EvalRule.OPP_PAWN_CAPTURE, reachedSquares & board.getPawnMask(opponent));
     }
 
     /**
@@ -222,64 +278,59 @@ public final class Evaluator {
      *
      * compute pawns' score reflecting above criteria
      */
-    private static void computePawnScore(final Board board,
-                                         final Set<Position> validMoves,
-                                         final Score score) {
-        Player currentPlayer = board.getCurrentPlayer();
-        Player opponent = currentPlayer.getOpponent();
-
-        Position kingPos = board.getKingPosition(currentPlayer);
-        Set<Position> pawnPositions = board.getPawnPositions(currentPlayer);
-        Set<Position> piecePositions = new ImmutableSet.Builder<Position>()
-                .add(kingPos)
-                .addAll(pawnPositions)
-                .build();
-
-        Position opponentKingPos = board.getKingPosition(opponent);
-        Set<Position> opponentPawnPositions = new HashSet<>(board.getPawnPositions(opponent));
-
-        for (Position pawnPosition : pawnPositions) {
-            for (Position validMove : validMoves) {
-                Position potentialMovePos = pawnPosition.add(validMove);
-
-                if (!isValidPosition(potentialMovePos, piecePositions)) {
-                    continue;
-                }
-
-                if (potentialMovePos.equals(opponentKingPos)) {
-                    score.add(EvalRule.OPP_KING_CAPTURE);
-                }
-
-                if (opponentPawnPositions.contains(potentialMovePos)) {
-                    score.add(EvalRule.OPP_PAWN_CAPTURE);
-                }
-            }
+    private static long computePawnScore(final Board board,
+                                         final Player player,
+                                         final Score breakdown) {
+        Player opponent = player.getOpponent();
+        int kingCaptures = 0;
+        int pawnCaptures = 0;
+
+        for (int pawns = board.getPawnMask(player); pawns != 0; pawns &= pawns - 1) {
+            int reachedSquares = getReachedSquares(board, player, pawns & -pawns);
+
+            kingCaptures += Integer.bitCount(reachedSquares & board.getKingMask(opponent));
+            pawnCaptures += Integer.bitCount(reachedSquares & board.getPawnMask(opponent));
         }
-    }
 
-    private static boolean isValidPosition(final Position position,
-                                           final Set<Position> piecePositions) {
-        return position.isValid() && !piecePositions.contains(position);
+        return add(breakdown, EvalRule.OPP_KING_CAPTURE, kingCaptures)
+            + add(breakdown, EvalRule.OPP_PAWN_CAPTURE, pawnCaptures);
     }
 
-    private static Set<Position> getValidMoves(final Board board) {
-        Player currentPlayer = board.getCurrentPlayer();
-        List<Card> cards = board.getCards(currentPlayer);
+    /**
+     * @param pieceMask Board mask of a single piece of player
+     * @return Board mask of the squares the piece reaches with the cards of player
+     */
+    @SuppressWarnings("PMD.ForLoopCanBeForeach")
+    private static int getReachedSquares(final Board board, final Player player, final int pieceMask) {
+        int pos = BoardUtil.getSquareFromMask(pieceMask);
+        List<Card> cards = board.getCards(player);
+        int reachedSquares = 0;
+
+        // Indexed loop avoids allocating an iterator
+        for (int cardIndex = 0; cardIndex < cards.size(); cardIndex++) {
+            reachedSquares |= board.getDestinationMask(player, cards.get(cardIndex), pos);
+        }
 
-        return getValidMovesForPlayer(currentPlayer, cards);
+        return reachedSquares;
     }
 
-    private static Set<Position> getValidMovesForOpponent(final Board board) {
-        Player opponent = board.getCurrentPlayer().getOpponent();
-        List<Card> cards = board.getCards(opponent);
-
-        return getValidMovesForPlayer(opponent, cards);
+    /**
+     * @param hitMask Board mask of the squares which score evalRule
+     */
+    private static long addHits(final Score breakdown, final EvalRule evalRule, final int hitMask) {
+        return add(breakdown, evalRule, Integer.bitCount(hitMask));
     }
 
-    private static Set<Position> getValidMovesForPlayer(final Player player, final List<Card> cards) {
-        return cards.stream()
-                .map(card -> card.getRelativeMoves(player))
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
+    /**
+     * Rules without hits are left out of the breakdown
+     *
+     * @return Score of count hits of evalRule
+     */
+    private static long add(final Score breakdown, final EvalRule evalRule, final int count) {
+        if (breakdown != null && count > 0) {
+            breakdown.add(evalRule, count);
+        }
+
+        return evalRule.getScore() * count;
     }
 }
@@ -0,0 +1,309 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches depth 1, 2, ... with {@link MiniMaxWithAlphaBeta} until the {@link SearchLimits} are reached.
+ * Reference : https://www.chessprogramming.org/Iterative_Deepening
+ *
+ * The transposition table and the move ordering state are kept across iterations, so every iteration searches the
+ * best move of the previous one first. An iteration interrupted by the limits or by {@link #stop()} is discarded and the best move of the last
+ * completed iteration is reported. A new iteration is only started if it is predicted to fit in the remaining budget,
+ * based on the effective branching factor of the previous iterations. Iterations after the first one search an
+ * aspiration window around the score of the previous iteration.
+ *
+ * With more than one thread the search runs in Lazy SMP mode: helper threads run iterative deepening on copies of the
+ * same board, sharing the transposition table and the limits, with their own killer and history tables. Every helper
+ * skips a different pattern of depths, see {@link #isSearchedByHelper(int, int)}, so that the threads spread over
+ * different depths. The helpers only fill the transposition table, the result is the one of the calling thread.
+ * Reference : https://www.chessprogramming.org/Lazy_SMP
+ */
+@Slf4j
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class IterativeDeepening {
+    // Used until two iterations have completed
+    private static final double DEFAULT_BRANCHING_FACTOR = 4.0;
+
+    // Half width of the first aspiration window, ten unique moves, and its growth factor after a failed search
+    private static final long ASPIRATION_WINDOW = EvalRule.UNIQUE_MOVE.getScore() * 10;
+    private static final int ASPIRATION_WINDOW_GROWTH = 4;
+
+    // Depth skipping of the helpers, in runs of SKIP_SIZE depths shifted by SKIP_PHASE, one entry per helper
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable transpositionTable;
+    private final EvaluationCache evaluationCache;
+    private final int threads;
+    private final MoveOrderer moveOrderer;
+    private final AtomicReference<SearchControl> searchControl;
+    private final AtomicReference<ScoreMoves> bestScoreMoves;
+    private final AtomicInteger completedDepth;
+
+    public IterativeDeepening() {
+        this(new TranspositionTable());
+    }
+
+    public IterativeDeepening(final TranspositionTable transpositionTable) {
+        this(transpositionTable, 1);
+    }
+
+    /**
+     * @param transpositionTable Transposition table, shared by all threads
+     * @param threads Number of search threads, including the calling thread
+     */
+    public IterativeDeepening(final TranspositionTable transpositionTable, final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be at least 1, threads = " + threads);
+        }
+
+        this.transpositionTable = transpositionTable;
+        this.evaluationCache = new EvaluationCache();
+        this.threads = threads;
+        this.moveOrderer = new MoveOrderer();
+        this.searchControl = new AtomicReference<>();
+        this.bestScoreMoves = new AtomicReference<>();
+        this.completedDepth = new AtomicInteger();
+    }
+
+    /**
+     * Searches board for the current player, board is restored once this returns. Helper threads are stopped
+     * before this returns.
+     *
+     * @param board Game Board
+     * @param limits Search limits
+     * @return Best Move path along with the best score of the last completed iteration
+     */
+    public ScoreMoves search(final Board board, final SearchLimits limits) {
+        return search(board, limits, SearchOptions.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #search(Board, SearchLimits)} with the given pruning options, SearchOptions.ANALYSIS searches
+     * every iteration exhaustively.
+     *
+     * @param board Game Board
+     * @param limits Search limits
+     * @param options Search options
+     * @return Best Move path along with the best score of the last completed iteration
+     */
+    public ScoreMoves search(final Board board, final SearchLimits limits, final SearchOptions options) {
+        SearchControl control = new SearchControl(limits, options);
+        searchControl.set(control);
+        bestScoreMoves.set(null);
+        completedDepth.set(0);
+        transpositionTable.newSearch();
+        moveOrderer.clear();
+
+        int maxDepth = Math.min(limits.getMaxDepth(), MiniMaxWithAlphaBeta.MAX_PLY);
+        List<Thread> helpers = startHelpers(board, control, maxDepth);
+
+        try {
+            searchMain(board, control, maxDepth);
+        } finally {
+            control.stop();
+            joinHelpers(helpers);
+        }
+
+        log.info("Iterative Deepening - {}", evaluationCache);
+
+        return bestScoreMoves.get();
+    }
+
+    private void searchMain(final Board board, final SearchControl control, final int maxDepth) {
+        long previousIterationNodes = 0;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long startNodes = control.getNodes();
+            long startMillis = control.getElapsedMillis();
+
+            ScoreMoves scoreMoves = depth > 1
+                ? searchWithAspirationWindow(board, depth, bestScoreMoves.get().getScore().getTotalScore(), control)
+                : MiniMaxWithAlphaBeta.search(board, depth, transpositionTable, evaluationCache, moveOrderer, control);
+
+            if (depth > 1 && control.isStopped()) {
+                log.info("Iterative Deepening - Depth = {} interrupted after {} nodes, {} ms",
+                    depth, control.getNodes(), control.getElapsedMillis());
+                break;
+            }
+
+            bestScoreMoves.set(scoreMoves);
+            completedDepth.set(depth);
+
+            long iterationNodes = control.getNodes() - startNodes;
+            long iterationMillis = control.getElapsedMillis() - startMillis;
+
+            log.info("Iterative Deepening - Depth = {}, Nodes = {}, Time Taken = {} (ms), Score = {}",
+                depth, iterationNodes, iterationMillis, scoreMoves.getScore().getTotalScore());
+
+            if (control.isStopped() || isGameDecided(scoreMoves)
+                || !isNextIterationAffordable(control, iterationNodes * threads, previousIterationNodes * threads,
+                    iterationMillis)) {
+                break;
+            }
+
+            previousIterationNodes = iterationNodes;
+        }
+    }
+
+    /**
+     * Searches a window around the score of the previous iteration first, the window is widened on the failing side
+     * until the score falls inside.
+     * Reference : https://www.chessprogramming.org/Aspiration_Windows
+     */
+    private ScoreMoves searchWithAspirationWindow(final Board board,
+                                                  final int depth,
+                                                  final long previousScore,
+                                                  final SearchControl control) {
+        // Mate scores change by a ply between iterations, a window around them would always fail
+        if (MiniMaxWithAlphaBeta.isMateScore(previousScore)) {
+            return MiniMaxWithAlphaBeta.search(board, depth, transpositionTable, evaluationCache, moveOrderer, control);
+        }
+
+        long delta = ASPIRATION_WINDOW;
+        long alpha = previousScore - delta;
+        long beta = previousScore + delta;
+
+        while (true) {
+            ScoreMoves scoreMoves = MiniMaxWithAlphaBeta.search(board, depth, toWindowBound(alpha),
+                toWindowBound(beta), transpositionTable, evaluationCache, moveOrderer, control);
+            if (control.isStopped()) {
+                return scoreMoves;
+            }
+
+            long score = scoreMoves.getScore().getTotalScore();
+            delta *= ASPIRATION_WINDOW_GROWTH;
+
+            if (score <= alpha) {
+                alpha = score - delta;
+            } else if (score >= beta) {
+                beta = score + delta;
+            } else {
+                return scoreMoves;
+            }
+        }
+    }
+
+    /**
+     * Past the mate bound the window is opened completely
+     */
+    private static int toWindowBound(final long bound) {
+        if (bound >= MiniMaxWithAlphaBeta.MATE_BOUND) {
+            return MiniMaxWithAlphaBeta.INFINITY;
+        }
+
+        return bound <= -MiniMaxWithAlphaBeta.MATE_BOUND ? -MiniMaxWithAlphaBeta.INFINITY : (int) bound;
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private List<Thread> startHelpers(final Board board, final SearchControl control, final int maxDepth) {
+        List<Thread> helpers = new ArrayList<>(threads - 1);
+
+        for (int i = 1; i < threads; i++) {
+            Board helperBoard = board.copy();
+            SearchControl helperControl = control.newHelper();
+            int helperIndex = i;
+
+            Thread helper = new Thread(
+                () -> searchHelper(helperBoard, helperControl, helperIndex, maxDepth),
+                "search-helper-" + i
+            );
+            helper.setDaemon(true);
+            helper.start();
+            helpers.add(helper);
+        }
+
+        return helpers;
+    }
+
+    private void searchHelper(final Board board,
+                              final SearchControl control,
+                              final int helperIndex,
+                              final int maxDepth) {
+        MoveOrderer helperMoveOrderer = new MoveOrderer();
+
+        for (int depth = 1; depth <= maxDepth && !control.isStopped(); depth++) {
+            if (isSearchedByHelper(helperIndex, depth)) {
+                MiniMaxWithAlphaBeta.search(board, depth, transpositionTable, evaluationCache, helperMoveOrderer,
+                    control);
+            }
+        }
+    }
+
+    /**
+     * Helpers search runs of 1 to 4 consecutive depths and skip as many, each helper with a different run length or
+     * offset, so that at any time the helpers are spread over several depths.
+     * Reference : https://www.chessprogramming.org/Lazy_SMP
+     *
+     * @param helperIndex Index of the helper thread, from 1
+     * @param depth Depth of the iteration
+     * @return true if the helper searches depth
+     */
+    public static boolean isSearchedByHelper(final int helperIndex, final int depth) {
+        int index = helperIndex % SKIP_SIZE.length;
+
+        return (depth + SKIP_PHASE[index]) / SKIP_SIZE[index] % 2 == 0;
+    }
+
+    private static void joinHelpers(final List<Thread> helpers) {
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the running search, can be called from any thread.
+     */
+    public void stop() {
+        SearchControl control = searchControl.get();
+        if (control != null) {
+            control.stop();
+        }
+    }
+
+    /**
+     * @return Best Move path of the last completed iteration of the running or last search
+     */
+    public Optional<ScoreMoves> getBestScoreMoves() {
+        return Optional.ofNullable(bestScoreMoves.get());
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth.get();
+    }
+
+    /**
+     * Searching deeper does not change a forced win or loss
+     */
+    private static boolean isGameDecided(final ScoreMoves scoreMoves) {
+        return MiniMaxWithAlphaBeta.isMateScore(scoreMoves.getScore().getTotalScore());
+    }
+
+    private static boolean isNextIterationAffordable(final SearchControl control,
+                                                     final long iterationNodes,
+                                                     final long previousIterationNodes,
+                                                     final long iterationMillis) {
+        double branchingFactor = previousIterationNodes > 0
+            ? Math.max(1.0, (double) iterationNodes / previousIterationNodes)
+            : DEFAULT_BRANCHING_FACTOR;
+
+        long predictedNodes = (long) (iterationNodes * branchingFactor);
+        long predictedMillis = (long) (iterationMillis * branchingFactor);
+        SearchLimits limits = control.getLimits();
+
+        return predictedNodes <= limits.getNodeLimit() - control.getTotalNodes()
+            && predictedMillis <= limits.getTimeLimitMillis() - control.getElapsedMillis();
+    }
+}
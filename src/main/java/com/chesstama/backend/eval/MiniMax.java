@@ -1,14 +1,10 @@
 package com.chesstama.backend.eval;
 
 import com.chesstama.backend.engine.Board;
-import com.chesstama.backend.engine.Player;
-import com.chesstama.backend.engine.Position;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 public final class MiniMax {
@@ -25,126 +21,87 @@ public final class MiniMax {
      * @param currentMovePath Current Move Path
      * @return Best Score along with Move Path
      */
-    @SuppressWarnings({"Duplicates", "PMD.AvoidReassigningParameters", "PMD.AvoidInstantiatingObjectsInLoops"})
-    public static ScoreMoves getBestMove(Board board,
+    public static ScoreMoves getBestMove(final Board board,
                                          final int maxDepth,
                                          final boolean isMaximizingPlayer,
                                          final List<Move> currentMovePath) {
+        int[][] moveLists = MoveGenerator.newMoveLists(maxDepth);
+        int[] movePath = new int[maxDepth];
+
+        return getBestMove(board, maxDepth, isMaximizingPlayer, 0, moveLists, movePath, currentMovePath);
+    }
+
+    @SuppressWarnings("Duplicates")
+    private static ScoreMoves getBestMove(final Board board,
+                                          final int maxDepth,
+                                          final boolean isMaximizingPlayer,
+                                          final int ply,
+                                          final int[][] moveLists,
+                                          final int[] movePath,
+                                          final List<Move> currentMovePath) {
         if (maxDepth == 0 || board.isGameOver()) {
-            Score score = Evaluator.getBoardValue(board);
-            log.info("Score = {}, Max Depth = {}, isGameOver = {}, Score = {}", score, maxDepth, board.isGameOver());
+            Score score = new Score(Evaluator.evaluate(board, board.getCurrentPlayer()));
+            log.trace("Score = {}, Ply = {}, isGameOver = {}", score, ply, board.isGameOver());
 
-            return new ScoreMoves(score, new ArrayList<>(currentMovePath));
+            return new ScoreMoves(score, PackedMove.toMoves(currentMovePath, movePath, ply));
         }
 
-        Player currentPlayer = board.getCurrentPlayer();
-        Set<PiecePosition> piecePositions = board.getAllPiecePositions(currentPlayer);
-        Set<Position> rawPiecePositions = piecePositions.stream()
-            .map(PiecePosition::getPosition)
-            .collect(Collectors.toSet());
-        Set<CardMove> cardMoves = board.getAllCardMoves(currentPlayer);
+        int[] moveList = moveLists[ply];
+        int moveCount = MoveGenerator.generateMoves(board, moveList);
 
         if (isMaximizingPlayer) {
             ScoreMoves scoreMoves = new ScoreMoves(Score.MIN_SCORE, new ArrayList<>());
 
-            for (PiecePosition piecePosition : piecePositions) {
-                for (CardMove cardMove : cardMoves) {
-                    Position from = piecePosition.getPosition();
-                    Position to = from.add(cardMove.getRelativeMove());
-
-                    if (!isValidMove(rawPiecePositions, from, to)) {
-                        continue;
-                    }
-
-                    // Compute move
-                    Move move = new Move(
-                        currentPlayer,
-                        cardMove.getCard(),
-                        piecePosition.getPieceType(),
-                        from,
-                        to
-                    );
+            for (int i = 0; i < moveCount; i++) {
+                int move = moveList[i];
 
-                    // Save board state
-                    Board boardCopy = board.copy();
+                // Make move
+                board.makeMove(move);
 
-                    // Make move
-                    board.makeMove(move);
+                // Add move to current path
+                movePath[ply] = move;
 
-                    // Add move to current path
-                    currentMovePath.add(move);
+                // Compute score
+                ScoreMoves currentScoreMoves = getBestMove(board, maxDepth-1, false, ply + 1,
+                    moveLists, movePath, currentMovePath);
 
-                    // Compute score
-                    ScoreMoves currentScoreMoves = getBestMove(board, maxDepth-1, false, currentMovePath);
-
-                    // Remove move from current path
-                    currentMovePath.remove(currentMovePath.size() - 1);
-
-                    // Update scoreMoves if applicable
-                    if (currentScoreMoves.compareTo(scoreMoves) > 0) {
-                        scoreMoves = currentScoreMoves;
-                    }
-
-                    // Restore board state
-                    board = boardCopy;
+                // Update scoreMoves if applicable
+                if (currentScoreMoves.compareTo(scoreMoves) > 0) {
+                    scoreMoves = currentScoreMoves;
                 }
+
+                // Restore board state
+                board.unmakeMove();
             }
 
             return scoreMoves;
         } else {
             ScoreMoves scoreMoves = new ScoreMoves(Score.MAX_SCORE, new ArrayList<>());
 
-            for (PiecePosition piecePosition : piecePositions) {
-                for (CardMove cardMove : cardMoves) {
-                    Position from = piecePosition.getPosition();
-                    Position to = from.add(cardMove.getRelativeMove());
+            for (int i = 0; i < moveCount; i++) {
+                int move = moveList[i];
 
-                    if (!isValidMove(rawPiecePositions, from, to)) {
-                        continue;
-                    }
+                // Make move
+                board.makeMove(move);
 
-                    // Compute move
-                    Move move = new Move(
-                        currentPlayer,
-                        cardMove.getCard(),
-                        piecePosition.getPieceType(),
-                        from,
-                        to
-                    );
+                // Add current move to path
+                movePath[ply] = move;
 
-                    // Save board state
-                    Board boardCopy = board.copy();
+                // Compute score
+                ScoreMoves currentScoreMoves = getBestMove(board, maxDepth-1, true, ply + 1,
+                    moveLists, movePath, currentMovePath);
 
-                    // Make move
-                    board.makeMove(move);
-
-                    // Add current move to path
-                    currentMovePath.add(move);
-
-                    // Compute score
-                    ScoreMoves currentScoreMoves = getBestMove(board, maxDepth-1, true, currentMovePath);
-
-                    // Remove current move from path
-                    currentMovePath.remove(currentMovePath.size()-1);
-
-                    // Update scoreMoves if applicable
-                    if (currentScoreMoves.compareTo(scoreMoves) < 0) {
-                        scoreMoves = currentScoreMoves;
-                    }
-
-                    // Restore board state
-                    board = boardCopy;
+                // Update scoreMoves if applicable
+                if (currentScoreMoves.compareTo(scoreMoves) < 0) {
+                    scoreMoves = currentScoreMoves;
                 }
+
+                // Restore board state
+                board.unmakeMove();
             }
 
             return scoreMoves;
         }
     }
 
-    private static boolean isValidMove(final Set<Position> rawPiecePositions,
-                                       final Position from,
-                                       final Position to) {
-        return from.isValid() && to.isValid() && !rawPiecePositions.contains(to);
-    }
-
 }
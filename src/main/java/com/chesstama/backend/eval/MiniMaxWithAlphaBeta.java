@@ -2,19 +2,103 @@ package com.chesstama.backend.eval;
 
 import com.chesstama.backend.engine.Board;
 import com.chesstama.backend.engine.Player;
-import com.chesstama.backend.engine.Position;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Alpha-beta search in negamax form, scores are ints relative to the player to move.
+ * Reference : https://www.chessprogramming.org/Negamax
+ *
+ * A won or lost game scores MATE_SCORE minus the ply it is reached at, so that the search prefers the fastest win
+ * and the slowest loss. Board evaluations are clamped below MATE_BOUND. A position repeated on the game history or
+ * the search path is a draw.
+ *
+ * {@link ThreatDetector} ends the search at nodes where the player to move wins in one, and extends it at the
+ * horizon while the player to move could lose on the next ply.
+ *
+ * Among root moves of equal score the first one in the fixed order of
+ * {@link MovePicker#generateFixedOrder(Board, int[])} is chosen, whatever order the moves are searched in, so that
+ * the best move does not depend on the hash moves, killers and history left by previous searches.
+ */
 @Slf4j
 public final class MiniMaxWithAlphaBeta {
-    public static long LEAF_NODES_EVALUATED = 1;
-
-    private MiniMaxWithAlphaBeta() {
+    public static final int MAX_PLY = TranspositionTable.MAX_DEPTH;
+    public static final int MATE_SCORE = 100_000_000;
+    public static final int MATE_BOUND = MATE_SCORE - MAX_PLY;
+    public static final int INFINITY = MATE_SCORE + 1;
+
+    // Every capture removes a piece, so the quiescence search ends well before this
+    private static final int MAX_QUIESCENCE_PLY = 16;
+
+    // Plies the horizon can be pushed back by along a path while the player to move is threatened
+    private static final int MAX_THREAT_EXTENSIONS = 4;
+
+    // Late move reductions, quiet moves after the first LMR_MIN_MOVES are searched one ply shallower, two plies after
+    // the first LMR_LATE_MOVES
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_LATE_MOVES = 8;
+
+    private static final int RAZORING_DEPTH = 2;
+
+    // Evaluations depend on the maximizing player, so entries of both perspectives must not mix
+    private static final long P2_PERSPECTIVE_KEY = 0x6A09_E667_F3BC_C908L;
+
+    private final Player maximizingPlayer;
+    private final long perspectiveKey;
+    private final TranspositionTable transpositionTable;
+    private final EvaluationCache evaluationCache;
+    private final MoveOrderer moveOrderer;
+    private final MovePicker[] movePickers;
+    private final SearchControl searchControl;
+    private final SearchOptions options;
+    private final boolean isInterruptible;
+    private final int maxExtendedPly;
+    private final int maxPly;
+    private final List<Move> currentMovePath;
+
+    // Triangular principal variation table, row ply starts at ply * pvStride and holds moves ply..pvLength[ply]-1
+    // Reference : https://www.chessprogramming.org/Triangular_PV-Table
+    private final int pvStride;
+    private final int[] pvTable;
+    private final int[] pvLength;
+
+    // Root moves in fixed order, ties between root moves of equal score go to the first one
+    private final int[] rootMoves;
+    private int rootMoveCount;
+    private int rootBestMove;
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private MiniMaxWithAlphaBeta(final Player maximizingPlayer,
+                                 final TranspositionTable transpositionTable,
+                                 final EvaluationCache evaluationCache,
+                                 final MoveOrderer moveOrderer,
+                                 final SearchControl searchControl,
+                                 final List<Move> currentMovePath,
+                                 final int maxDepth) {
+        this.maximizingPlayer = maximizingPlayer;
+        this.perspectiveKey = maximizingPlayer == Player.P2 ? P2_PERSPECTIVE_KEY : 0L;
+        this.transpositionTable = transpositionTable;
+        this.evaluationCache = evaluationCache;
+        this.moveOrderer = moveOrderer;
+        this.maxExtendedPly = getMaxExtendedPly(maxDepth);
+        this.maxPly = maxExtendedPly + MAX_QUIESCENCE_PLY;
+        this.movePickers = new MovePicker[maxPly];
+        for (int ply = 0; ply < maxPly; ply++) {
+            movePickers[ply] = new MovePicker(moveOrderer);
+        }
+        this.searchControl = searchControl;
+        this.options = searchControl.getOptions();
+        // Depth 1 always completes so that iterative deepening has a move to report
+        this.isInterruptible = maxDepth > 1;
+        this.currentMovePath = currentMovePath;
+        this.pvStride = maxExtendedPly + 1;
+        this.pvTable = new int[pvStride * pvStride];
+        this.pvLength = new int[pvStride];
+        this.rootMoves = new int[MoveGenerator.MAX_MOVES];
     }
 
     /**
@@ -28,172 +112,579 @@ public final class MiniMaxWithAlphaBeta {
      * @param currentMovePath current move path
      * @return Best Move path along with the best score
      */
-    @SuppressWarnings({"Duplicates", "PMD.AvoidReassigningParameters", "PMD.AvoidInstantiatingObjectsInLoops"})
-    public static ScoreMoves getBestMove(Board board,
-                                         ScoreMoves alpha,
-                                         ScoreMoves beta,
+    public static ScoreMoves getBestMove(final Board board,
+                                         final ScoreMoves alpha,
+                                         final ScoreMoves beta,
                                          final int maxDepth,
                                          final boolean isMaximizingPlayer,
                                          final List<Move> currentMovePath) {
-        if (maxDepth == 0 || board.isGameOver()) {
-            LEAF_NODES_EVALUATED++;
-            board.printBoardOnly();
-            Score score = Evaluator.getBoardValue(board, true);
-            log.info("Score = {}, Max Depth = {}, isGameOver = {}, Score = {}", score, maxDepth, board.isGameOver());
+        return getBestMove(board, alpha, beta, maxDepth, isMaximizingPlayer, currentMovePath,
+            TranspositionTable.forDepth(maxDepth));
+    }
 
-            return new ScoreMoves(score, new ArrayList<>(currentMovePath));
-        }
+    /**
+     * Same as {@link #getBestMove(Board, ScoreMoves, ScoreMoves, int, boolean, List)}, reusing the positions
+     * stored in transpositionTable by previous searches.
+     *
+     * @param board Game Board
+     * @param alpha Alpha Value
+     * @param beta Beta Value
+     * @param maxDepth Maximum Depth
+     * @param isMaximizingPlayer Flag indicating if current turn is of maximizing player
+     * @param currentMovePath current move path
+     * @param transpositionTable Transposition table shared across searches
+     * @return Best Move path along with the best score, relative to the maximizing player
+     */
+    public static ScoreMoves getBestMove(final Board board,
+                                         final ScoreMoves alpha,
+                                         final ScoreMoves beta,
+                                         final int maxDepth,
+                                         final boolean isMaximizingPlayer,
+                                         final List<Move> currentMovePath,
+                                         final TranspositionTable transpositionTable) {
+        return getBestMove(board, alpha, beta, maxDepth, isMaximizingPlayer, currentMovePath, transpositionTable,
+            new SearchControl(SearchLimits.NONE));
+    }
 
+    /**
+     * Same as {@link #getBestMove(Board, ScoreMoves, ScoreMoves, int, boolean, List, TranspositionTable)}, counting
+     * the searched nodes in searchControl.
+     *
+     * @param board Game Board
+     * @param alpha Alpha Value
+     * @param beta Beta Value
+     * @param maxDepth Maximum Depth
+     * @param isMaximizingPlayer Flag indicating if current turn is of maximizing player
+     * @param currentMovePath current move path
+     * @param transpositionTable Transposition table shared across searches
+     * @param searchControl Node counters and cancellation flag of the search
+     * @return Best Move path along with the best score, relative to the maximizing player
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public static ScoreMoves getBestMove(final Board board,
+                                         final ScoreMoves alpha,
+                                         final ScoreMoves beta,
+                                         final int maxDepth,
+                                         final boolean isMaximizingPlayer,
+                                         final List<Move> currentMovePath,
+                                         final TranspositionTable transpositionTable,
+                                         final SearchControl searchControl) {
         Player currentPlayer = board.getCurrentPlayer();
-        Set<PiecePosition> piecePositions = board.getAllPiecePositions(currentPlayer);
-        Set<Position> rawPiecePositions = piecePositions.stream()
-                                                        .map(PiecePosition::getPosition)
-                                                        .collect(Collectors.toSet());
-        Set<CardMove> cardMoves = board.getAllCardMoves(currentPlayer);
-
-        if (isMaximizingPlayer) {
-            ScoreMoves scoreMoves = new ScoreMoves(Score.MIN_SCORE, new ArrayList<>());
-
-            for (PiecePosition piecePosition : piecePositions) {
-                for (CardMove cardMove : cardMoves) {
-                    Position from = piecePosition.getPosition();
-                    Position to = from.add(cardMove.getRelativeMove());
-
-                    if (!isValidMove(rawPiecePositions, from, to)) {
-                        continue;
-                    }
+        Player maximizingPlayer = isMaximizingPlayer ? currentPlayer : currentPlayer.getOpponent();
+        int alphaScore = toSearchScore(alpha.getScore().getTotalScore());
+        int betaScore = toSearchScore(beta.getScore().getTotalScore());
+
+        transpositionTable.newSearch();
+
+        MiniMaxWithAlphaBeta search = new MiniMaxWithAlphaBeta(maximizingPlayer, transpositionTable,
+            EvaluationCache.forDepth(maxDepth), new MoveOrderer(getMaxExtendedPly(maxDepth)), searchControl,
+            currentMovePath,
+            maxDepth);
+
+        // alpha and beta are relative to the maximizing player, negamax scores to the player to move
+        return isMaximizingPlayer
+            ? search.searchRoot(board, alphaScore, betaScore, maxDepth, 1)
+            : search.searchRoot(board, -betaScore, -alphaScore, maxDepth, -1);
+    }
+
+    /**
+     * Single iteration of {@link IterativeDeepening}, searches board for the current player. The result is only
+     * meaningful if searchControl is not stopped once this returns, except for depth 1 which always completes.
+     *
+     * @param board Game Board
+     * @param depth Depth of the iteration
+     * @param transpositionTable Transposition table shared across iterations
+     * @param evaluationCache Evaluation cache shared across iterations
+     * @param moveOrderer Move ordering state shared across iterations
+     * @param searchControl Limits and cancellation flag of the search
+     * @return Best Move path along with the best score
+     */
+    public static ScoreMoves search(final Board board,
+                                    final int depth,
+                                    final TranspositionTable transpositionTable,
+                                    final EvaluationCache evaluationCache,
+                                    final MoveOrderer moveOrderer,
+                                    final SearchControl searchControl) {
+        return search(board, depth, -INFINITY, INFINITY, transpositionTable, evaluationCache, moveOrderer,
+            searchControl);
+    }
+
+    /**
+     * Same as {@link #search(Board, int, TranspositionTable, EvaluationCache, MoveOrderer, SearchControl)} within the
+     * window
+     * (alpha, beta). A score at or below alpha is an upper bound and a score at or above beta a lower bound of the
+     * actual score.
+     *
+     * @param board Game Board
+     * @param depth Depth of the iteration
+     * @param alpha Alpha Value, relative to the current player
+     * @param beta Beta Value, relative to the current player
+     * @param transpositionTable Transposition table shared across iterations
+     * @param evaluationCache Evaluation cache shared across iterations
+     * @param moveOrderer Move ordering state shared across iterations
+     * @param searchControl Limits and cancellation flag of the search
+     * @return Best Move path along with the best score
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public static ScoreMoves search(final Board board,
+                                    final int depth,
+                                    final int alpha,
+                                    final int beta,
+                                    final TranspositionTable transpositionTable,
+                                    final EvaluationCache evaluationCache,
+                                    final MoveOrderer moveOrderer,
+                                    final SearchControl searchControl) {
+        return new MiniMaxWithAlphaBeta(board.getCurrentPlayer(), transpositionTable, evaluationCache, moveOrderer,
+            searchControl, new ArrayList<>(), depth).searchRoot(board, alpha, beta, depth, 1);
+    }
+
+    /**
+     * Serial search for the subtrees of {@link ParallelAlphaBeta}, one instance per task.
+     *
+     * @param maximizingPlayer Player at the root of the parallel search
+     * @param transpositionTable Transposition table shared by all tasks
+     * @param evaluationCache Evaluation cache shared by all tasks
+     * @param searchControl Cancellation flag of the task
+     * @param maxDepth Depth of the parallel search
+     * @return Subtree search
+     */
+    public static MiniMaxWithAlphaBeta newSubtreeSearch(final Player maximizingPlayer,
+                                                        final TranspositionTable transpositionTable,
+                                                        final EvaluationCache evaluationCache,
+                                                        final SearchControl searchControl,
+                                                        final int maxDepth) {
+        return new MiniMaxWithAlphaBeta(maximizingPlayer, transpositionTable, evaluationCache,
+            new MoveOrderer(getMaxExtendedPly(maxDepth)), searchControl, new ArrayList<>(), maxDepth);
+    }
 
-                    // Compute move
-                    Move move = new Move(
-                        currentPlayer,
-                        cardMove.getCard(),
-                        piecePosition.getPieceType(),
-                        from,
-                        to
-                    );
+    /**
+     * Searches the subtree of board, which is ply plies below the root of the parallel search
+     *
+     * @return Score relative to the player to move, meaningless if the search control got stopped
+     */
+    public int searchSubtree(final Board board, final int alpha, final int beta, final int depth, final int ply) {
+        return negamax(board, alpha, beta, depth, ply);
+    }
 
-                    // Save board state
-                    Board boardCopy = board.copy();
+    /**
+     * @param ply Ply of the last {@link #searchSubtree(Board, int, int, int, int)} call
+     * @return Principal variation found by that call
+     */
+    public int[] getPrincipalVariation(final int ply) {
+        int row = ply * pvStride;
 
-                    printBoardAndMove(board, move, maxDepth);
+        return Arrays.copyOfRange(pvTable, row + ply, row + pvLength[ply]);
+    }
 
-                    // Make move
-                    board.makeMove(move);
+    public static boolean isMateScore(final long score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
 
-                    // Add move to current path
-                    currentMovePath.add(move);
+    /**
+     * Only the root builds Move objects, from the principal variation.
+     */
+    private ScoreMoves searchRoot(final Board board,
+                                  final int alpha,
+                                  final int beta,
+                                  final int maxDepth,
+                                  final int sign) {
+        rootBestMove = PackedMove.NONE;
+        int score = negamax(board, alpha, beta, maxDepth, 0);
+
+        // No move raised alpha if the root failed low, only the best move is known then
+        if (pvLength[0] == 0 && rootBestMove != PackedMove.NONE) {
+            pvTable[0] = rootBestMove;
+            pvLength[0] = 1;
+        }
 
-                    // Compute score
-                    ScoreMoves currentScoreMoves = getBestMove(board, alpha, beta,
-                        maxDepth-1, false, currentMovePath);
+        return new ScoreMoves(new Score((long) sign * score),
+            PackedMove.toMoves(currentMovePath, pvTable, pvLength[0]));
+    }
 
-                    // Remove move from current path
-                    currentMovePath.remove(currentMovePath.size() - 1);
+    @SuppressWarnings({"PMD.AvoidReassigningParameters", "PMD.PrematureDeclaration"})
+    private int negamax(final Board board, int alpha, final int beta, int depth, final int ply) {
+        pvLength[ply] = ply;
 
-                    // Update scoreMoves if applicable
-                    if (currentScoreMoves.isGreaterThan(scoreMoves)) {
-                        scoreMoves = currentScoreMoves;
-                        alpha = ScoreMoves.max(alpha, scoreMoves);
+        // Threat extension, the horizon is not reached while the player to move could lose on the next ply
+        if (depth == 0 && ply < maxExtendedPly && !board.isGameOver()
+            && ThreatDetector.isThreatened(board, board.getCurrentPlayer())) {
+            depth = 1;
+        }
 
-                        // Beta Cutoff
-                        if (alpha.isGreaterThanOrEqualTo(beta)) {
-                            log.info("Beta cutoff, alpha = {}, beta = {}", alpha.getScore(), beta.getScore());
-                            break;
-                        }
-                    }
+        if (depth == 0) {
+            return quiesce(board, alpha, beta, ply);
+        }
 
-                    // Restore board state
-                    board = boardCopy;
-                }
+        if (searchControl.countNode() && isInterruptible) {
+            return 0;
+        }
+
+        // The game ends on the winning move, so the player this node searches for has lost
+        if (board.isGameOver()) {
+            searchControl.countLeafNode();
+            return ply - MATE_SCORE;
+        }
 
-                // Beta Cutoff
-                if (alpha.isGreaterThanOrEqualTo(beta)) {
-                    log.info("Beta cutoff, alpha = {}, beta = {}", alpha.getScore(), beta.getScore());
-                    break;
+        // Cards cycle between the players, a repeated position is searched no further
+        if (ply > 0 && board.isRepetition()) {
+            searchControl.countLeafNode();
+            return getDrawScore(board);
+        }
+
+        // Mate in one, the root still searches to report the winning move
+        if (ply > 0 && ThreatDetector.canWinNow(board)) {
+            searchControl.countLeafNode();
+            updatePrincipalVariationWithWin(board, ply);
+            return MATE_SCORE - ply - 1;
+        }
+
+        long hashKey = board.getHashKey() ^ perspectiveKey;
+        long entry = transpositionTable.probe(hashKey);
+        int hashMove = PackedMove.NONE;
+
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.getMove(entry);
+
+            // The root always searches to report the best move
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = fromHashScore(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+
+                if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                    || bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                    return score;
                 }
             }
+        }
 
-            return scoreMoves;
-        } else {
-            ScoreMoves scoreMoves = new ScoreMoves(Score.MAX_SCORE, new ArrayList<>());
+        // Pruning near the horizon, only at null window nodes and away from mate scores
+        boolean isFrontierNode = options.isPruningEnabled() && depth <= RAZORING_DEPTH && beta - alpha == 1
+            && !isMateScore(alpha) && !isMateScore(beta);
+        int pruningMargin = depth == RAZORING_DEPTH ? options.getRazoringMargin() : options.getFutilityMargin();
+        int staticScore = isFrontierNode ? evaluate(board, alpha - pruningMargin, alpha - pruningMargin + 1) : 0;
 
-            for (PiecePosition piecePosition : piecePositions) {
-                for (CardMove cardMove : cardMoves) {
-                    Position from = piecePosition.getPosition();
-                    Position to = from.add(cardMove.getRelativeMove());
+        // Razoring, a node far below alpha two plies above the horizon is only searched for tactics
+        // Reference : https://www.chessprogramming.org/Razoring
+        if (isFrontierNode && depth == RAZORING_DEPTH && staticScore + pruningMargin <= alpha) {
+            int score = quiesce(board, alpha, beta, ply);
 
-                    if (!isValidMove(rawPiecePositions, from, to)) {
-                        continue;
-                    }
+            if (score <= alpha) {
+                return score;
+            }
+        }
 
-                    // Compute move
-                    Move move = new Move(
-                        currentPlayer,
-                        cardMove.getCard(),
-                        piecePosition.getPieceType(),
-                        from,
-                        to
-                    );
+        // Futility pruning, a quiet move one ply above the horizon cannot bring a node far below alpha back to it
+        // Reference : https://www.chessprogramming.org/Futility_Pruning
+        int futilityScore = staticScore + pruningMargin;
+        boolean isFutile = isFrontierNode && depth == 1 && futilityScore <= alpha;
 
-                    // Save board state
-                    Board boardCopy = board.copy();
+        MovePicker movePicker = movePickers[ply];
+        movePicker.init(board, hashMove, ply);
 
-                    printBoardAndMove(board, move, maxDepth);
+        if (ply == 0) {
+            rootMoveCount = MovePicker.generateFixedOrder(board, rootMoves);
+        }
 
-                    // Make move
-                    board.makeMove(move);
+        // Window before the children narrow it, decides the bound of the stored entry
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        int movesSearched = 0;
 
-                    // Add current move to path
-                    currentMovePath.add(move);
+        for (int move = movePicker.nextMove(); move != PackedMove.NONE; move = movePicker.nextMove()) {
+            boolean isQuiet = options.isPruningEnabled() && MoveOrderer.isQuiet(board, move);
 
-                    // Compute score
-                    ScoreMoves currentScoreMoves = getBestMove(board, alpha, beta,
-                        maxDepth-1, true, currentMovePath);
+            // At least one move is searched, so that a node with moves is never scored as lost
+            if (isFutile && isQuiet && bestMove != PackedMove.NONE) {
+                bestScore = Math.max(bestScore, futilityScore);
+                continue;
+            }
 
-                    // Remove current move from path
-                    currentMovePath.remove(currentMovePath.size()-1);
+            if (log.isTraceEnabled()) {
+                printBoardAndMove(board, move, depth);
+            }
 
-                    // Update scoreMoves if applicable
-                    if (currentScoreMoves.isLesserThan(scoreMoves)) {
-                        scoreMoves = currentScoreMoves;
-                        beta = ScoreMoves.min(beta, scoreMoves);
+            int reduction = isQuiet ? getReduction(move, movesSearched, depth, ply) : 0;
 
-                        // Alpha cutoff
-                        if (alpha.isGreaterThanOrEqualTo(beta)) {
-                            log.info("Alpha cutoff, alpha = {}, beta = {}", alpha.getScore(), beta.getScore());
-                            break;
-                        }
+            // A root move ahead of the best one in fixed order is searched to tell whether it scores the same
+            boolean isTieBreaker = ply == 0 && bestMove != PackedMove.NONE && isAheadOf(move, bestMove);
+            int moveAlpha = isTieBreaker ? alpha - 1 : alpha;
 
-                    }
+            board.makeMove(move);
+            int score = searchChild(board, movesSearched == 0, reduction, moveAlpha, beta, depth, ply);
+            board.unmakeMove();
+            movesSearched++;
 
-                    // Restore board state
-                    board = boardCopy;
+            if (isStopped()) {
+                break;
+            }
+
+            if (score > bestScore || isTieBreaker && score == bestScore) {
+                bestScore = score;
+                bestMove = move;
+
+                if (score > moveAlpha) {
+                    alpha = score;
+                    updatePrincipalVariation(move, ply);
+
+                    if (alpha >= beta) {
+                        moveOrderer.updateCutoff(board, move, depth, ply);
+                        break;
+                    }
                 }
+            }
+        }
+
+        if (isStopped()) {
+            return 0;
+        }
+
+        // A player without moves loses
+        if (bestMove == PackedMove.NONE) {
+            return ply - MATE_SCORE;
+        }
+
+        if (ply == 0) {
+            rootBestMove = bestMove;
+        }
+
+        int bound = TranspositionTable.EXACT;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        }
+
+        transpositionTable.store(hashKey, depth, bound, toHashScore(bestScore, ply), bestMove);
+
+        return bestScore;
+    }
+
+    /**
+     * Principal variation search, the first move is expected to be the best one. The other moves are only searched
+     * with a null window around alpha to prove that they are not better, and searched again with the full window if
+     * one turns out to be.
+     * Reference : https://www.chessprogramming.org/Principal_Variation_Search
+     *
+     * A reduced move is first searched with the null window at the reduced depth, and searched again at full depth
+     * only if it fails high.
+     * Reference : https://www.chessprogramming.org/Late_Move_Reductions
+     *
+     * @param board Board, with the move made
+     * @param isFirstMove true for the first move searched at the node
+     * @param reduction Plies by which the move is reduced
+     * @return Score of the move, relative to the player of the node
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    private int searchChild(final Board board,
+                            final boolean isFirstMove,
+                            final int reduction,
+                            final int alpha,
+                            final int beta,
+                            final int depth,
+                            final int ply) {
+        if (isFirstMove) {
+            return -negamax(board, -beta, -alpha, depth - 1, ply + 1);
+        }
+
+        if (reduction > 0) {
+            int score = -negamax(board, -alpha - 1, -alpha, depth - 1 - reduction, ply + 1);
+
+            if (score <= alpha || isStopped()) {
+                return score;
+            }
+        }
+
+        int score = -negamax(board, -alpha - 1, -alpha, depth - 1, ply + 1);
+
+        if (score > alpha && score < beta && !isStopped()) {
+            score = -negamax(board, -beta, -alpha, depth - 1, ply + 1);
+        }
+
+        return score;
+    }
+
+    /**
+     * @return true if move comes before other in the fixed order of the root moves
+     */
+    private boolean isAheadOf(final int move, final int other) {
+        for (int i = 0; i < rootMoveCount; i++) {
+            if (rootMoves[i] == move) {
+                return true;
+            }
+
+            if (rootMoves[i] == other) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Quiet moves searched late at a node with enough depth left are reduced, killers are not
+     *
+     * @param move Quiet move
+     * @param movesSearched Moves searched before move at the node
+     * @return Plies by which move is reduced
+     */
+    private int getReduction(final int move, final int movesSearched, final int depth, final int ply) {
+        if (depth < LMR_MIN_DEPTH || movesSearched < LMR_MIN_MOVES
+            || move == moveOrderer.getKiller(ply, 0) || move == moveOrderer.getKiller(ply, 1)) {
+            return 0;
+        }
+
+        return movesSearched < LMR_LATE_MOVES || depth == LMR_MIN_DEPTH ? 1 : 2;
+    }
+
+    /**
+     * Searches only the winning moves and captures past the depth horizon, so that the board is not evaluated in the
+     * middle of an exchange. The player to move may stand pat on the evaluation instead of capturing, assuming it has
+     * a quiet move at least as good.
+     * Reference : https://www.chessprogramming.org/Quiescence_Search
+     */
+    @SuppressWarnings("PMD.AvoidReassigningParameters")
+    private int quiesce(final Board board, int alpha, final int beta, final int ply) {
+        if (searchControl.countNode() && isInterruptible) {
+            return 0;
+        }
+
+        searchControl.countLeafNode();
+
+        if (board.isGameOver()) {
+            return ply - MATE_SCORE;
+        }
+
+        if (ThreatDetector.canWinNow(board)) {
+            return MATE_SCORE - ply - 1;
+        }
+
+        int standPat = evaluate(board, alpha, beta);
+        if (standPat >= beta || ply == maxPly) {
+            return standPat;
+        }
+
+        alpha = Math.max(alpha, standPat);
 
-                // Alpha cutoff
-                if (alpha.isGreaterThanOrEqualTo(beta)) {
-                    log.info("Alpha cutoff, alpha = {}, beta = {}", alpha.getScore(), beta.getScore());
-                    break;
+        MovePicker movePicker = movePickers[ply];
+        movePicker.initTactical(board, ply);
+
+        int bestScore = standPat;
+
+        for (int move = movePicker.nextMove(); move != PackedMove.NONE; move = movePicker.nextMove()) {
+            board.makeMove(move);
+            int score = -quiesce(board, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+
+            if (isStopped()) {
+                break;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+
+                if (score > alpha) {
+                    alpha = score;
+
+                    if (alpha >= beta) {
+                        break;
+                    }
                 }
             }
+        }
+
+        return isStopped() ? 0 : bestScore;
+    }
 
-            return scoreMoves;
+    /**
+     * Evaluates from the point of view of the maximizing player, as the evaluation is not symmetric between players,
+     * and negates it for the opponent. Outside of (alpha, beta) the score is only a bound, as a fail-soft search score.
+     */
+    private int evaluate(final Board board, final int alpha, final int beta) {
+        if (log.isTraceEnabled()) {
+            board.printBoardOnly();
         }
+
+        boolean isMaximizingPlayer = board.getCurrentPlayer() == maximizingPlayer;
+        long score = isMaximizingPlayer
+            ? evaluationCache.evaluate(board, maximizingPlayer, alpha, beta)
+            : -evaluationCache.evaluate(board, maximizingPlayer, -(long) beta, -(long) alpha);
+
+        return Math.max(-MATE_BOUND + 1, Math.min(MATE_BOUND - 1, toSearchScore(score)));
+    }
+
+    /**
+     * Contempt is given up by the maximizing player, and gained by its opponent
+     */
+    private int getDrawScore(final Board board) {
+        return board.getCurrentPlayer() == maximizingPlayer ? -options.getContempt() : options.getContempt();
+    }
+
+    /**
+     * The principal variation of ply is move followed by the principal variation of ply + 1
+     */
+    private void updatePrincipalVariation(final int move, final int ply) {
+        int row = ply * pvStride;
+        int childRow = row + pvStride;
+        int childLength = pvLength[ply + 1];
+
+        pvTable[row + ply] = move;
+        System.arraycopy(pvTable, childRow + ply + 1, pvTable, row + ply + 1, childLength - ply - 1);
+        pvLength[ply] = childLength;
     }
 
-    @SuppressWarnings("PMD.UnusedPrivateMethod")
-    private static void printBoardAndMove(final Board board, final Move move, final int maxDepth) {
+    /**
+     * The principal variation of a node won in one is the first winning move
+     */
+    private void updatePrincipalVariationWithWin(final Board board, final int ply) {
+        MovePicker movePicker = movePickers[ply];
+        movePicker.initTactical(board, ply);
+
+        pvTable[ply * pvStride + ply] = movePicker.nextMove();
+        pvLength[ply] = ply + 1;
+    }
+
+    private boolean isStopped() {
+        return isInterruptible && searchControl.isStopped();
+    }
+
+    /**
+     * Mate scores are stored relative to the position rather than to the root
+     */
+    private static int toHashScore(final int score, final int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromHashScore(final int score, final int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    /**
+     * @return Plies deeper than maxDepth are only reached through threat extensions and the quiescence search
+     */
+    private static int getMaxExtendedPly(final int maxDepth) {
+        return Math.min(maxDepth + MAX_THREAT_EXTENSIONS, MAX_PLY);
+    }
+
+    private static int toSearchScore(final long score) {
+        return (int) Math.max(-INFINITY, Math.min(INFINITY, score));
+    }
+
+    private static void printBoardAndMove(final Board board, final int move, final int maxDepth) {
         System.out.println("======================");
-        System.out.println("At depth = " + maxDepth + ", Making move = " + move);
+        System.out.println("At depth = " + maxDepth + ", Making move = " + PackedMove.toString(move));
         System.out.println("======================");
         board.printBoardOnly();
         System.out.println("======================");
     }
 
-    private static boolean isValidMove(final Set<Position> rawPiecePositions,
-                                       final Position from,
-                                       final Position to) {
-        return from.isValid() && to.isValid() && !rawPiecePositions.contains(to);
-    }
-
 }
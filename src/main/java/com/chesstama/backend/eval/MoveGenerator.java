@@ -0,0 +1,122 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.List;
+
+/**
+ * Generates packed moves (see {@link PackedMove}) for the current player without allocating.
+ */
+public final class MoveGenerator {
+    // 5 pieces x 2 cards x 4 destinations per card
+    public static final int MAX_MOVES = 40;
+
+    private static final int ALL_SQUARES = -1;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Allocates one move list per ply, to be reused across the whole search.
+     *
+     * @param maxPly Maximum number of plies
+     * @return Move lists indexed by ply
+     */
+    public static int[][] newMoveLists(final int maxPly) {
+        return new int[maxPly][MAX_MOVES];
+    }
+
+    /**
+     * Writes all moves of the current player into moveList
+     *
+     * @param board Board
+     * @param moveList Move list of at least MAX_MOVES entries
+     * @return Number of moves written
+     */
+    public static int generateMoves(final Board board, final int[] moveList) {
+        return generateMoves(board, moveList, 0, ALL_SQUARES, ALL_SQUARES);
+    }
+
+    /**
+     * Appends the moves of the current player whose destination is in the target masks to moveList, in the same order
+     * as {@link #generateMoves(Board, int[])}
+     *
+     * @param board Board
+     * @param moveList Move list of at least MAX_MOVES entries
+     * @param count Number of moves already in moveList
+     * @param kingTargets Board mask of the allowed king destinations
+     * @param pawnTargets Board mask of the allowed pawn destinations
+     * @return Number of moves in moveList
+     */
+    @SuppressWarnings({"PMD.ForLoopCanBeForeach", "PMD.AvoidReassigningParameters"})
+    public static int generateMoves(final Board board,
+                                    final int[] moveList,
+                                    int count,
+                                    final int kingTargets,
+                                    final int pawnTargets) {
+        Player player = board.getCurrentPlayer();
+        List<Card> cards = board.getCards(player);
+        int kingMask = kingTargets == 0 ? 0 : board.getKingMask(player);
+        int pawnMask = pawnTargets == 0 ? 0 : board.getPawnMask(player);
+
+        // Indexed loop avoids allocating an iterator
+        for (int cardIndex = 0; cardIndex < cards.size(); cardIndex++) {
+            Card card = cards.get(cardIndex);
+            count = addMoves(board, player, card, PieceType.KING, kingMask, kingTargets, moveList, count);
+            count = addMoves(board, player, card, PieceType.PAWN, pawnMask, pawnTargets, moveList, count);
+        }
+
+        return count;
+    }
+
+    /**
+     * @param board Board
+     * @param move Packed move, possibly from another position
+     * @return true if move can be played by the current player on board
+     */
+    public static boolean isPseudoLegal(final Board board, final int move) {
+        Player player = board.getCurrentPlayer();
+        Card card = PackedMove.getCard(move);
+        int from = PackedMove.getFrom(move);
+        int pieceMask = PackedMove.getPieceType(move) == PieceType.KING
+            ? board.getKingMask(player)
+            : board.getPawnMask(player);
+
+        return move != PackedMove.NONE
+            && PackedMove.getPlayer(move) == player
+            && (pieceMask & BoardUtil.getBoardMask(from)) != 0
+            && board.getCards(player).contains(card)
+            && (board.getDestinationMask(player, card, from) & BoardUtil.getBoardMask(PackedMove.getTo(move))) != 0;
+    }
+
+    @SuppressWarnings("PMD.AvoidReassigningParameters")
+    private static int addMoves(final Board board,
+                                final Player player,
+                                final Card card,
+                                final PieceType pieceType,
+                                final int pieceMask,
+                                final int targets,
+                                final int[] moveList,
+                                int count) {
+        int pieces = pieceMask;
+
+        while (pieces != 0) {
+            int from = BoardUtil.getSquareFromMask(pieces);
+            pieces &= pieces - 1;
+
+            int destinations = board.getDestinationMask(player, card, from) & targets;
+            while (destinations != 0) {
+                int to = BoardUtil.getSquareFromMask(destinations);
+                destinations &= destinations - 1;
+
+                moveList[count++] = PackedMove.encode(player, card, pieceType, from, to);
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,109 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.Arrays;
+
+/**
+ * Ordering state for the quiet moves, used by {@link MovePicker}
+ * 1) Two killer moves per ply, quiet moves which caused a cutoff at the same ply
+ * 2) History heuristic indexed by [card][from][to], for the other quiet moves
+ *
+ * Reference : https://www.chessprogramming.org/Killer_Heuristic
+ * Reference : https://www.chessprogramming.org/History_Heuristic
+ *
+ * Killers and history are kept across the iterations of a search, so a MoveOrderer must not be shared between
+ * concurrent searches.
+ */
+public class MoveOrderer {
+    public static final int KILLERS_PER_PLY = 2;
+
+    // History scores are halved once one of them reaches this
+    private static final int MAX_HISTORY_SCORE = 1 << 20;
+
+    private static final int CARDS = Card.values().length;
+
+    private final int[] killers;
+    private final int[] history;
+
+    public MoveOrderer() {
+        this(MiniMaxWithAlphaBeta.MAX_PLY);
+    }
+
+    /**
+     * @param maxPly Maximum number of plies of the searches
+     */
+    public MoveOrderer(final int maxPly) {
+        this.killers = new int[maxPly * KILLERS_PER_PLY];
+        this.history = new int[CARDS * Board.MAX_SQUARES * Board.MAX_SQUARES];
+    }
+
+    public void clear() {
+        Arrays.fill(killers, PackedMove.NONE);
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * @param ply Ply
+     * @param slot Killer slot, 0 is the most recent
+     * @return Killer move or PackedMove.NONE
+     */
+    public int getKiller(final int ply, final int slot) {
+        return killers[ply * KILLERS_PER_PLY + slot];
+    }
+
+    public int getHistoryScore(final int move) {
+        return history[getHistoryIndex(move)];
+    }
+
+    /**
+     * Records a move which caused a beta cutoff
+     *
+     * @param board Board, with the move not made
+     * @param move Move
+     * @param depth Remaining depth of the node
+     * @param ply Ply of the node
+     */
+    public void updateCutoff(final Board board, final int move, final int depth, final int ply) {
+        if (!isQuiet(board, move)) {
+            return;
+        }
+
+        int killerIndex = ply * KILLERS_PER_PLY;
+        if (killers[killerIndex] != move) {
+            killers[killerIndex + 1] = killers[killerIndex];
+            killers[killerIndex] = move;
+        }
+
+        int historyIndex = getHistoryIndex(move);
+        history[historyIndex] += depth * depth;
+
+        if (history[historyIndex] >= MAX_HISTORY_SCORE) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * @param board Board, with the move not made
+     * @param move Move
+     * @return true if move neither captures nor wins the game
+     */
+    public static boolean isQuiet(final Board board, final int move) {
+        Player opponent = PackedMove.getPlayer(move).getOpponent();
+        int toMask = BoardUtil.getBoardMask(PackedMove.getTo(move));
+        int kingSlotMask = PackedMove.getPieceType(move) == PieceType.KING ? Board.getKingSlotMask(opponent) : 0;
+
+        return ((board.getPieceMask(opponent) | kingSlotMask) & toMask) == 0;
+    }
+
+    private static int getHistoryIndex(final int move) {
+        return (PackedMove.getCard(move).ordinal() * Board.MAX_SQUARES + PackedMove.getFrom(move)) * Board.MAX_SQUARES
+            + PackedMove.getTo(move);
+    }
+}
@@ -0,0 +1,245 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Player;
+
+/**
+ * Staged move generation for a single ply, moves are only generated when the search asks for more of them
+ * 1) Hash move
+ * 2) Winning moves (king capture or king reaching the opponent king home)
+ * 3) Pawn captures, captures with a pawn first
+ * 4) Killer moves
+ * 5) Quiet moves, ranked by history
+ *
+ * At cut nodes the first moves usually refute the position, so the quiet moves are never generated.
+ * Reference : https://www.chessprogramming.org/Move_Generation#Staged_Move_Generation
+ *
+ * One MovePicker is allocated per ply and reused for every node of that ply.
+ */
+public final class MovePicker {
+    private enum Stage {
+        HASH_MOVE,
+        GENERATE_WINS,
+        WINS,
+        GENERATE_CAPTURES,
+        CAPTURES,
+        KILLERS,
+        GENERATE_QUIETS,
+        QUIETS,
+        DONE
+    }
+
+    // Never updated, so that moves are picked in the same order whatever was searched before
+    private static final MoveOrderer NO_ORDERING = new MoveOrderer();
+
+    private final MoveOrderer moveOrderer;
+    private final int[] moves;
+    private final int[] scores;
+
+    private Board board;
+    private Stage stage;
+    private int hashMove;
+    private int ply;
+    private int index;
+    private int count;
+    private int killerSlot;
+    private boolean isTacticalOnly;
+
+    public MovePicker(final MoveOrderer moveOrderer) {
+        this.moveOrderer = moveOrderer;
+        this.moves = new int[MoveGenerator.MAX_MOVES];
+        this.scores = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Writes the moves of the current player of board in an order which depends on no search state: winning moves,
+     * captures, then quiet moves, each in the order of {@link MoveGenerator}. Searches break ties between root moves
+     * of equal score on this order, so that they choose the same move whichever order they search the moves in.
+     *
+     * @param board Board
+     * @param moveList Move list of at least MoveGenerator.MAX_MOVES entries
+     * @return Number of moves written
+     */
+    public static int generateFixedOrder(final Board board, final int[] moveList) {
+        MovePicker movePicker = new MovePicker(NO_ORDERING);
+        movePicker.init(board, PackedMove.NONE, 0);
+
+        int count = 0;
+        for (int move = movePicker.nextMove(); move != PackedMove.NONE; move = movePicker.nextMove()) {
+            moveList[count++] = move;
+        }
+
+        return count;
+    }
+
+    /**
+     * Starts picking the moves of the current player of board
+     *
+     * @param board Board
+     * @param hashMove Best move stored for the board or PackedMove.NONE
+     * @param ply Ply of the board
+     */
+    public void init(final Board board, final int hashMove, final int ply) {
+        this.board = board;
+        this.hashMove = MoveGenerator.isPseudoLegal(board, hashMove) ? hashMove : PackedMove.NONE;
+        this.ply = ply;
+        this.stage = Stage.HASH_MOVE;
+        this.index = 0;
+        this.count = 0;
+        this.killerSlot = 0;
+        this.isTacticalOnly = false;
+    }
+
+    /**
+     * Starts picking only the winning moves and captures of the current player of board, for the quiescence search
+     *
+     * @param board Board
+     * @param ply Ply of the board
+     */
+    public void initTactical(final Board board, final int ply) {
+        init(board, PackedMove.NONE, ply);
+        this.isTacticalOnly = true;
+    }
+
+    /**
+     * @return Next move to search or PackedMove.NONE once all moves have been picked
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    public int nextMove() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = Stage.GENERATE_WINS;
+                    if (hashMove != PackedMove.NONE) {
+                        return hashMove;
+                    }
+                    break;
+
+                case GENERATE_WINS:
+                    generateWins();
+                    stage = Stage.WINS;
+                    break;
+
+                case WINS:
+                case CAPTURES:
+                case QUIETS:
+                    int move = nextGeneratedMove();
+                    if (move != PackedMove.NONE) {
+                        return move;
+                    }
+                    stage = stage == Stage.WINS ? Stage.GENERATE_CAPTURES
+                        : stage == Stage.CAPTURES && !isTacticalOnly ? Stage.KILLERS : Stage.DONE;
+                    break;
+
+                case GENERATE_CAPTURES:
+                    generateCaptures();
+                    stage = Stage.CAPTURES;
+                    break;
+
+                case KILLERS:
+                    int killer = nextKiller();
+                    if (killer != PackedMove.NONE) {
+                        return killer;
+                    }
+                    stage = Stage.GENERATE_QUIETS;
+                    break;
+
+                case GENERATE_QUIETS:
+                    generateQuiets();
+                    stage = Stage.QUIETS;
+                    break;
+
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    private void generateWins() {
+        Player opponent = board.getCurrentPlayer().getOpponent();
+        int opponentKing = board.getKingMask(opponent);
+
+        index = 0;
+        count = MoveGenerator.generateMoves(board, moves, 0,
+            opponentKing | Board.getKingSlotMask(opponent), opponentKing);
+    }
+
+    private void generateCaptures() {
+        Player opponent = board.getCurrentPlayer().getOpponent();
+        int opponentPawns = board.getPawnMask(opponent);
+
+        index = 0;
+        count = MoveGenerator.generateMoves(board, moves, 0, 0, opponentPawns);
+        // The king capturing a pawn on the opponent king home is a winning move
+        count = MoveGenerator.generateMoves(board, moves, count, opponentPawns & ~Board.getKingSlotMask(opponent), 0);
+    }
+
+    private int nextKiller() {
+        while (killerSlot < MoveOrderer.KILLERS_PER_PLY) {
+            int killer = moveOrderer.getKiller(ply, killerSlot++);
+
+            if (killer != hashMove && isKiller(killer)) {
+                return killer;
+            }
+        }
+
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Killers are quiet moves of other nodes, so they have to be checked against the board
+     */
+    private boolean isKiller(final int move) {
+        return MoveGenerator.isPseudoLegal(board, move) && MoveOrderer.isQuiet(board, move);
+    }
+
+    private void generateQuiets() {
+        Player opponent = board.getCurrentPlayer().getOpponent();
+        int opponentPieces = board.getPieceMask(opponent);
+
+        index = 0;
+        count = MoveGenerator.generateMoves(board, moves, 0,
+            ~(opponentPieces | Board.getKingSlotMask(opponent)), ~opponentPieces);
+
+        // Insertion sort by history, move lists are short
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int score = moveOrderer.getHistoryScore(move);
+            int j = i - 1;
+
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Skips the moves already picked in the hash move and killer stages
+     */
+    private int nextGeneratedMove() {
+        while (index < count) {
+            int move = moves[index++];
+
+            if (move != hashMove && (stage != Stage.QUIETS || !isPickedKiller(move))) {
+                return move;
+            }
+        }
+
+        return PackedMove.NONE;
+    }
+
+    private boolean isPickedKiller(final int move) {
+        for (int slot = 0; slot < MoveOrderer.KILLERS_PER_PLY; slot++) {
+            if (move == moveOrderer.getKiller(ply, slot)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes a move into a single int so that the search can keep moves in primitive arrays.
+ *
+ * Bit layout (LSB first)
+ * (0-4)   : to position (1D board position)
+ * (5-9)   : from position (1D board position)
+ * (10-14) : card ordinal
+ * (15)    : piece type ordinal
+ * (16)    : player ordinal
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    private static final int POSITION_BITS = 5;
+    private static final int POSITION_MASK = (1 << POSITION_BITS) - 1;
+
+    private static final int FROM_SHIFT = POSITION_BITS;
+    private static final int CARD_SHIFT = FROM_SHIFT + POSITION_BITS;
+    private static final int CARD_MASK = 0x1F;
+    private static final int PIECE_TYPE_SHIFT = CARD_SHIFT + 5;
+    private static final int PLAYER_SHIFT = PIECE_TYPE_SHIFT + 1;
+
+    private static final Card[] CARDS = Card.values();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final Player[] PLAYERS = Player.values();
+
+    private PackedMove() {
+    }
+
+    public static int encode(final Player player,
+                             final Card card,
+                             final PieceType pieceType,
+                             final int from,
+                             final int to) {
+        return to
+            | from << FROM_SHIFT
+            | card.ordinal() << CARD_SHIFT
+            | pieceType.ordinal() << PIECE_TYPE_SHIFT
+            | player.ordinal() << PLAYER_SHIFT;
+    }
+
+    public static int encode(final Move move) {
+        return encode(
+            move.getPlayer(),
+            move.getCard(),
+            move.getPieceType(),
+            BoardUtil.get1DBoardPosition(move.getFrom()),
+            BoardUtil.get1DBoardPosition(move.getTo())
+        );
+    }
+
+    public static int getTo(final int move) {
+        return move & POSITION_MASK;
+    }
+
+    public static int getFrom(final int move) {
+        return (move >>> FROM_SHIFT) & POSITION_MASK;
+    }
+
+    public static Card getCard(final int move) {
+        return CARDS[(move >>> CARD_SHIFT) & CARD_MASK];
+    }
+
+    public static PieceType getPieceType(final int move) {
+        return PIECE_TYPES[(move >>> PIECE_TYPE_SHIFT) & 1];
+    }
+
+    public static Player getPlayer(final int move) {
+        return PLAYERS[(move >>> PLAYER_SHIFT) & 1];
+    }
+
+    /**
+     * Builds a Move object, only meant to be used when reporting moves outside the search.
+     *
+     * @param move Packed move
+     * @return Move
+     */
+    public static Move toMove(final int move) {
+        return new Move(
+            getPlayer(move),
+            getCard(move),
+            getPieceType(move),
+            BoardUtil.get2DBoardPosition(getFrom(move)),
+            BoardUtil.get2DBoardPosition(getTo(move))
+        );
+    }
+
+    /**
+     * Builds the move path reported to the caller of a search.
+     *
+     * @param prefix Moves preceding the packed moves
+     * @param moves Packed moves
+     * @param count Number of packed moves to convert
+     * @return Move path
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public static List<Move> toMoves(final List<Move> prefix, final int[] moves, final int count) {
+        List<Move> result = new ArrayList<>(prefix.size() + count);
+        result.addAll(prefix);
+
+        for (int i = 0; i < count; i++) {
+            result.add(toMove(moves[i]));
+        }
+
+        return result;
+    }
+
+    public static String toString(final int move) {
+        return toMove(move).toString();
+    }
+}
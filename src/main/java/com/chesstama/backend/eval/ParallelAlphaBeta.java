@@ -0,0 +1,265 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel alpha-beta search using Young Brothers Wait on a ForkJoinPool.
+ * Reference : https://www.chessprogramming.org/Young_Brothers_Wait_Concept
+ *
+ * The eldest child of a node is searched first, then the remaining siblings are searched in parallel as
+ * RecursiveTasks with the bound the eldest child established. A sibling failing high stops the other siblings through
+ * their shared SearchControl. Nodes with less than MIN_SPLIT_DEPTH plies left are searched serially by
+ * {@link MiniMaxWithAlphaBeta}.
+ *
+ * Scores are fail-hard, i.e. clamped to the alpha-beta window of the node, and siblings do not share bounds
+ * found while running, so every node returns the same score whichever task finishes first. Moves are searched in the
+ * fixed order of {@link MovePicker#generateFixedOrder(Board, int[])} and a young brother only replaces the best move
+ * with a higher score, so among root moves of equal score the first one in that order is chosen, as in the serial
+ * search. The best move is then the same as the one of a serial search at the same depth.
+ *
+ * Every search starts from a cleared transposition table, so that its result does not depend on the searches made
+ * before. Evaluations do not depend on the search, the evaluation cache is kept.
+ */
+public class ParallelAlphaBeta {
+    public static final int MIN_SPLIT_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable transpositionTable;
+    private final EvaluationCache evaluationCache;
+
+    public ParallelAlphaBeta() {
+        this(ForkJoinPool.commonPool(), new TranspositionTable());
+    }
+
+    public ParallelAlphaBeta(final ForkJoinPool pool, final TranspositionTable transpositionTable) {
+        this(pool, transpositionTable, new EvaluationCache());
+    }
+
+    /**
+     * @param pool Pool the tasks of the search run on
+     * @param transpositionTable Transposition table, cleared at the start of every search
+     * @param evaluationCache Evaluation cache, shared by all the tasks
+     */
+    public ParallelAlphaBeta(final ForkJoinPool pool,
+                             final TranspositionTable transpositionTable,
+                             final EvaluationCache evaluationCache) {
+        this.pool = pool;
+        this.transpositionTable = transpositionTable;
+        this.evaluationCache = evaluationCache;
+    }
+
+    /**
+     * Searches board for the current player, board is not modified.
+     *
+     * @param board Game Board
+     * @param depth Depth
+     * @return Best Move path along with the best score
+     */
+    public ScoreMoves getBestMove(final Board board, final int depth) {
+        transpositionTable.clear();
+
+        Node root = new Node(board.getCurrentPlayer(), depth, board.copy(),
+            new SearchControl(SearchLimits.NONE), -MiniMaxWithAlphaBeta.INFINITY, MiniMaxWithAlphaBeta.INFINITY,
+            depth, 0, false);
+        Result result = pool.invoke(root);
+
+        return new ScoreMoves(new Score(result.score),
+            PackedMove.toMoves(new ArrayList<>(), result.principalVariation, result.principalVariation.length));
+    }
+
+    private static final class Result {
+        private final int score;
+        private final int[] principalVariation;
+
+        // Principal variations are never modified once built
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        public Result(final int score, final int[] principalVariation) {
+            this.score = score;
+            this.principalVariation = principalVariation;
+        }
+
+        public Result negate() {
+            return new Result(-score, principalVariation);
+        }
+
+        public Result prepend(final int move) {
+            int[] moves = new int[principalVariation.length + 1];
+            moves[0] = move;
+            System.arraycopy(principalVariation, 0, moves, 1, principalVariation.length);
+
+            return new Result(score, moves);
+        }
+    }
+
+    /**
+     * Searches the subtree of board, a task owns its board and its serial search.
+     */
+    @SuppressWarnings("serial")
+    private final class Node extends RecursiveTask<Result> {
+        private final Player maximizingPlayer;
+        private final int maxDepth;
+        private final Board board;
+        private final SearchControl searchControl;
+        private final int alpha;
+        private final int beta;
+        private final int depth;
+        private final int ply;
+        // Young brothers stop their siblings once their parent is refuted
+        private final boolean isYoungBrother;
+
+        private MiniMaxWithAlphaBeta subtreeSearch;
+
+        @SuppressWarnings("PMD.ExcessiveParameterList")
+        public Node(final Player maximizingPlayer,
+                    final int maxDepth,
+                    final Board board,
+                    final SearchControl searchControl,
+                    final int alpha,
+                    final int beta,
+                    final int depth,
+                    final int ply,
+                    final boolean isYoungBrother) {
+            super();
+            this.maximizingPlayer = maximizingPlayer;
+            this.maxDepth = maxDepth;
+            this.board = board;
+            this.searchControl = searchControl;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+            this.ply = ply;
+            this.isYoungBrother = isYoungBrother;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = search(alpha, beta, depth, ply);
+
+            // Failing low refutes the parent, the remaining siblings do not need to be searched
+            if (isYoungBrother && result != null && result.score <= alpha) {
+                searchControl.stop();
+            }
+
+            return result;
+        }
+
+        /**
+         * @return Score relative to the player to move clamped to [alpha, beta], null if the search got stopped
+         */
+        @SuppressWarnings("PMD.AvoidReassigningParameters")
+        private Result search(int alpha, final int beta, final int depth, final int ply) {
+            if (depth < MIN_SPLIT_DEPTH || board.isGameOver() || ply > 0 && board.isRepetition()) {
+                return searchSerially(alpha, beta, depth, ply);
+            }
+
+            if (searchControl.countNode()) {
+                return null;
+            }
+
+            int[] moves = getOrderedMoves();
+            if (moves.length == 0) {
+                return new Result(clamp(ply - MiniMaxWithAlphaBeta.MATE_SCORE, alpha, beta), new int[0]);
+            }
+
+            // The eldest brother is searched first, by this task
+            board.makeMove(moves[0]);
+            Result eldest = search(-beta, -alpha, depth - 1, ply + 1);
+            board.unmakeMove();
+
+            if (eldest == null) {
+                return null;
+            }
+
+            Result best = eldest.negate().prepend(moves[0]);
+            if (best.score >= beta) {
+                return new Result(beta, best.principalVariation);
+            }
+
+            alpha = Math.max(alpha, best.score);
+
+            // The young brothers are searched in parallel with the bound of the eldest one
+            List<Node> youngBrothers = newYoungBrothers(moves, alpha, beta, depth, ply);
+            ForkJoinTask.invokeAll(youngBrothers);
+
+            if (searchControl.isStopped()) {
+                return null;
+            }
+
+            for (int i = 0; i < youngBrothers.size(); i++) {
+                Result youngBrother = youngBrothers.get(i).join();
+
+                // Stopped by a sibling which failed high
+                if (youngBrother == null) {
+                    continue;
+                }
+
+                Result result = youngBrother.negate().prepend(moves[i + 1]);
+                if (result.score >= beta) {
+                    return new Result(beta, result.principalVariation);
+                }
+
+                // The first move in order is kept among moves of equal score, as in the serial search
+                if (result.score > best.score) {
+                    best = result;
+                }
+            }
+
+            return new Result(clamp(best.score, alpha, beta), best.principalVariation);
+        }
+
+        @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+        private List<Node> newYoungBrothers(final int[] moves,
+                                            final int alpha,
+                                            final int beta,
+                                            final int depth,
+                                            final int ply) {
+            List<Node> youngBrothers = new ArrayList<>(moves.length - 1);
+            SearchControl youngBrothersControl = searchControl.newChild();
+
+            for (int i = 1; i < moves.length; i++) {
+                Board youngBrotherBoard = board.copy();
+                youngBrotherBoard.makeMove(moves[i]);
+
+                youngBrothers.add(new Node(maximizingPlayer, maxDepth, youngBrotherBoard,
+                    youngBrothersControl.newHelper(), -beta, -alpha, depth - 1, ply + 1, true));
+            }
+
+            return youngBrothers;
+        }
+
+        private Result searchSerially(final int alpha, final int beta, final int depth, final int ply) {
+            if (subtreeSearch == null) {
+                subtreeSearch = MiniMaxWithAlphaBeta.newSubtreeSearch(maximizingPlayer, transpositionTable,
+                    evaluationCache, searchControl, maxDepth);
+            }
+
+            int score = subtreeSearch.searchSubtree(board, alpha, beta, depth, ply);
+
+            return searchControl.isStopped()
+                ? null
+                : new Result(clamp(score, alpha, beta), subtreeSearch.getPrincipalVariation(ply));
+        }
+
+        /**
+         * Moves in the fixed order the serial search breaks ties on, without hash move, killers and history
+         */
+        private int[] getOrderedMoves() {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MovePicker.generateFixedOrder(board, moves);
+
+            return Arrays.copyOf(moves, count);
+        }
+    }
+
+    private static int clamp(final int score, final int alpha, final int beta) {
+        return Math.max(alpha, Math.min(beta, score));
+    }
+}
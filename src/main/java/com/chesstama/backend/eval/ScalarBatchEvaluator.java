@@ -0,0 +1,385 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates many independent boards at once, e.g. for batch analysis or the leaves of a Monte Carlo tree search.
+ * The scores are the same as the ones of {@link Evaluator#evaluate(Board, Player)}.
+ *
+ * Boards are packed in a {@link Block}, a structure of arrays of piece masks and hand masks, one lane per board.
+ * A hand mask holds the moves of the two cards of a player as the squares reached from the center of the board, so
+ * the squares reached by all the pieces of a player with a move are found with one shift of its piece mask. Every
+ * move is counted by loops over the lanes with the same shift, each updating a single array with bitwise operations
+ * and bit counts only, without branches.
+ *
+ * The lanes are evaluated one at a time, the speed up over evaluating every board comes from the shared shifts and the
+ * absence of per-board lookups, not from SIMD instructions: the build targets Java 8 (see build.gradle), which has
+ * neither jdk.incubator.vector nor a JIT vectorizing these loops.
+ */
+public final class ScalarBatchEvaluator {
+    private static final int CENTER = Card.CARD_CENTER_ROW * Board.MAX_COLS + Card.CARD_CENTER_COL;
+
+    // Bits of the squares of the board, in board bit layout
+    private static final int BOARD_MASK = -1 << (Board.BOARD_INDEX_MAX + 1 - Board.MAX_SQUARES);
+
+    // Squares from which the move to the square relative to CENTER stays within the columns of the board
+    private static final int[] SOURCE_MASKS = computeSourceMasks();
+
+    private ScalarBatchEvaluator() {
+    }
+
+    /**
+     * Evaluates all the lanes of block from the point of view of player
+     *
+     * @param block Boards to evaluate
+     * @param player Player to evaluate the boards for
+     * @param scores Total score of every lane, at least block.size() long
+     */
+    public static void evaluate(final Block block, final Player player, final long[] scores) {
+        boolean isP1 = player == Player.P1;
+        int[] kings = isP1 ? block.p1Kings : block.p2Kings;
+        int[] pawns = isP1 ? block.p1Pawns : block.p2Pawns;
+        int[] pieces = isP1 ? block.p1Pieces : block.p2Pieces;
+        int[] hands = isP1 ? block.p1Hands : block.p2Hands;
+        int[] dealMoves = isP1 ? block.p1DealMoves : block.p2DealMoves;
+        int[] opponentKings = isP1 ? block.p2Kings : block.p1Kings;
+        int[] opponentPawns = isP1 ? block.p2Pawns : block.p1Pawns;
+        int[] opponentPieces = isP1 ? block.p2Pieces : block.p1Pieces;
+        int[] opponentHands = isP1 ? block.p2Hands : block.p1Hands;
+        int home = Board.getKingSlotMask(player);
+        int opponentHome = Board.getKingSlotMask(player.getOpponent());
+        int lanes = block.lanes;
+
+        block.clearCounts();
+
+        for (int move = 0; move < Board.MAX_SQUARES; move++) {
+            if (move == CENTER) {
+                continue;
+            }
+
+            addHits(lanes, move, pieces, hands, opponentKings, block.kingHits);
+            addHits(lanes, move, pieces, hands, opponentPawns, block.pawnHits);
+            addHomeHits(lanes, move, kings, pieces, hands, opponentHome, block.kingHomeHits);
+            addReach(lanes, move, pieces, hands, block.reach);
+            addHits(lanes, move, pawns, dealMoves, BOARD_MASK, block.pawnSquares);
+
+            addHits(lanes, move, opponentPieces, opponentHands, kings, block.opponentKingHits);
+            addHits(lanes, move, opponentPieces, opponentHands, pawns, block.opponentPawnHits);
+            addHomeHits(lanes, move, opponentKings, opponentPieces, opponentHands, home, block.opponentKingHomeHits);
+        }
+
+        weighCounts(block, player, scores);
+    }
+
+    /**
+     * Adds to every lane the number of targets the pieces reach with move, if move is in the lane moves
+     */
+    private static void addHits(final int lanes,
+                                final int move,
+                                final int[] pieces,
+                                final int[] moves,
+                                final int[] targets,
+                                final int[] hits) {
+        int sourceMask = SOURCE_MASKS[move];
+        int rightShift = getRightShift(move);
+        int leftShift = getLeftShift(move);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            hits[lane] += Integer.bitCount((pieces[lane] & sourceMask) >>> rightShift << leftShift
+                & getLaneMask(moves[lane], move) & targets[lane]);
+        }
+    }
+
+    /**
+     * Same as {@link #addHits(int, int, int[], int[], int[], int[])} with the same targets for all the lanes
+     */
+    private static void addHits(final int lanes,
+                                final int move,
+                                final int[] pieces,
+                                final int[] moves,
+                                final int targetMask,
+                                final int[] hits) {
+        int sourceMask = SOURCE_MASKS[move];
+        int rightShift = getRightShift(move);
+        int leftShift = getLeftShift(move);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            hits[lane] += Integer.bitCount((pieces[lane] & sourceMask) >>> rightShift << leftShift
+                & getLaneMask(moves[lane], move) & targetMask);
+        }
+    }
+
+    /**
+     * Adds 1 to every lane whose king reaches the free opponent king home with move
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    private static void addHomeHits(final int lanes,
+                                    final int move,
+                                    final int[] kings,
+                                    final int[] pieces,
+                                    final int[] moves,
+                                    final int opponentHome,
+                                    final int[] hits) {
+        int sourceMask = SOURCE_MASKS[move];
+        int rightShift = getRightShift(move);
+        int leftShift = getLeftShift(move);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            hits[lane] += Integer.bitCount((kings[lane] & sourceMask) >>> rightShift << leftShift
+                & getLaneMask(moves[lane], move) & opponentHome & ~pieces[lane]);
+        }
+    }
+
+    /**
+     * Adds to every lane the free squares the pieces reach with move
+     */
+    private static void addReach(final int lanes,
+                                 final int move,
+                                 final int[] pieces,
+                                 final int[] moves,
+                                 final int[] reach) {
+        int sourceMask = SOURCE_MASKS[move];
+        int rightShift = getRightShift(move);
+        int leftShift = getLeftShift(move);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            reach[lane] |= (pieces[lane] & sourceMask) >>> rightShift << leftShift
+                & getLaneMask(moves[lane], move) & BOARD_MASK & ~pieces[lane];
+        }
+    }
+
+    /**
+     * Moving by move - CENTER squares shifts the board bits the other way, one of both shifts is 0
+     */
+    private static int getRightShift(final int move) {
+        return Math.max(move - CENTER, 0);
+    }
+
+    private static int getLeftShift(final int move) {
+        return Math.max(CENTER - move, 0);
+    }
+
+    /**
+     * @return All ones if move is set in moves, else 0, from the sign bit of the move bit
+     */
+    private static int getLaneMask(final int moves, final int move) {
+        return (moves << move) >> Board.BOARD_INDEX_MAX;
+    }
+
+    private static void weighCounts(final Block block, final Player player, final long[] scores) {
+        Player opponent = player.getOpponent();
+        int home = Board.getKingSlotMask(player);
+        int opponentHome = Board.getKingSlotMask(opponent);
+        int[] kings = player == Player.P1 ? block.p1Kings : block.p2Kings;
+        int[] opponentKings = player == Player.P1 ? block.p2Kings : block.p1Kings;
+
+        for (int lane = 0; lane < block.lanes; lane++) {
+            DealTables dealTables = block.dealTables[lane];
+
+            scores[lane] = EvalRule.OPP_KING_CAPTURE.getScore() * block.kingHits[lane]
+                + EvalRule.OPP_KING_HOME.getScore() * block.kingHomeHits[lane]
+                + EvalRule.OPP_PAWN_CAPTURE.getScore() * block.pawnHits[lane]
+                + EvalRule.UNIQUE_MOVE.getScore() * Integer.bitCount(block.reach[lane])
+                + EvalRule.PAWN_SQUARE.getScore() * block.pawnSquares[lane]
+                + EvalRule.OPP_KING_HOME_PROXIMITY.getScore() * getKingHomeProximity(block, dealTables, player, lane)
+                + EvalRule.KING_CAPTURE.getScore() * block.opponentKingHits[lane]
+                + EvalRule.KING_HOME.getScore() * block.opponentKingHomeHits[lane]
+                + EvalRule.PAWN_CAPTURE.getScore() * block.opponentPawnHits[lane]
+                + EvalRule.KING_HOME_PROXIMITY.getScore() * getKingHomeProximity(block, dealTables, opponent, lane);
+
+            // A game is over once a king is captured or reaches the opponent king home
+            if (kings[lane] == 0 || (opponentKings[lane] & home) != 0) {
+                scores[lane] = EvalRule.GAME_LOST.getScore();
+            } else if (opponentKings[lane] == 0 || (kings[lane] & opponentHome) != 0) {
+                scores[lane] = EvalRule.GAME_WON.getScore();
+            }
+        }
+    }
+
+    /**
+     * Same as {@link DealTables#getKingHomeProximity(Board, Player)}
+     */
+    private static int getKingHomeProximity(final Block block,
+                                            final DealTables dealTables,
+                                            final Player player,
+                                            final int lane) {
+        int king = player == Player.P1 ? block.p1Kings[lane] : block.p2Kings[lane];
+        if (king == 0) {
+            return 0;
+        }
+
+        int cards = player == Player.P1 ? block.p1Cards[lane] : block.p2Cards[lane];
+
+        int distance = dealTables.getKingHomeDistance(player, Block.getCard(cards, 0), Block.getCard(cards, 1),
+            BoardUtil.getSquareFromMask(king));
+
+        return Math.max(0, DealTables.KING_HOME_HORIZON - distance);
+    }
+
+    private static int[] computeSourceMasks() {
+        int[] masks = new int[Board.MAX_SQUARES];
+
+        for (int move = 0; move < Board.MAX_SQUARES; move++) {
+            int columnShift = move % Board.MAX_COLS - Card.CARD_CENTER_COL;
+
+            for (int square = 0; square < Board.MAX_SQUARES; square++) {
+                int column = square % Board.MAX_COLS + columnShift;
+
+                if (column >= Board.MIN_COL_INDEX && column <= Board.MAX_COL_INDEX) {
+                    masks[move] |= BoardUtil.getBoardMask(square);
+                }
+            }
+        }
+
+        return masks;
+    }
+
+    /**
+     * Boards packed as a structure of arrays, one lane per board. A block is reused by clearing it.
+     */
+    public static final class Block {
+        private static final int CARD_BITS = 5;
+        private static final int CARD_MASK = (1 << CARD_BITS) - 1;
+        private static final Card[] CARDS = Card.values();
+
+        private final int capacity;
+        private int lanes;
+
+        private final int[] p1Kings;
+        private final int[] p1Pawns;
+        private final int[] p2Kings;
+        private final int[] p2Pawns;
+        private final int[] p1Pieces;
+        private final int[] p2Pieces;
+        // Moves of the hand of a player, as the squares reached from CENTER
+        private final int[] p1Hands;
+        private final int[] p2Hands;
+        // Moves of all the cards of the deal, for the square values
+        private final int[] p1DealMoves;
+        private final int[] p2DealMoves;
+        // Ordinals of the cards in hand, for the king home distances
+        private final int[] p1Cards;
+        private final int[] p2Cards;
+        private final DealTables[] dealTables;
+
+        // Counts of the last evaluation
+        private final int[] kingHits;
+        private final int[] kingHomeHits;
+        private final int[] pawnHits;
+        private final int[] reach;
+        private final int[] pawnSquares;
+        private final int[] opponentKingHits;
+        private final int[] opponentKingHomeHits;
+        private final int[] opponentPawnHits;
+
+        public Block(final int capacity) {
+            this.capacity = capacity;
+            this.p1Kings = new int[capacity];
+            this.p1Pawns = new int[capacity];
+            this.p2Kings = new int[capacity];
+            this.p2Pawns = new int[capacity];
+            this.p1Pieces = new int[capacity];
+            this.p2Pieces = new int[capacity];
+            this.p1Hands = new int[capacity];
+            this.p2Hands = new int[capacity];
+            this.p1DealMoves = new int[capacity];
+            this.p2DealMoves = new int[capacity];
+            this.p1Cards = new int[capacity];
+            this.p2Cards = new int[capacity];
+            this.dealTables = new DealTables[capacity];
+            this.kingHits = new int[capacity];
+            this.kingHomeHits = new int[capacity];
+            this.pawnHits = new int[capacity];
+            this.reach = new int[capacity];
+            this.pawnSquares = new int[capacity];
+            this.opponentKingHits = new int[capacity];
+            this.opponentKingHomeHits = new int[capacity];
+            this.opponentPawnHits = new int[capacity];
+        }
+
+        /**
+         * Packs board in the next lane, board is not kept
+         *
+         * @param board Board
+         * @return Lane of board
+         */
+        public int add(final Board board) {
+            if (lanes == capacity) {
+                throw new IllegalStateException("Block is full, capacity = " + capacity);
+            }
+
+            int lane = lanes++;
+            p1Kings[lane] = board.getKingMask(Player.P1);
+            p1Pawns[lane] = board.getPawnMask(Player.P1);
+            p2Kings[lane] = board.getKingMask(Player.P2);
+            p2Pawns[lane] = board.getPawnMask(Player.P2);
+            p1Pieces[lane] = p1Kings[lane] | p1Pawns[lane];
+            p2Pieces[lane] = p2Kings[lane] | p2Pawns[lane];
+            p1Hands[lane] = getMoves(board.getCards(Player.P1), Player.P1);
+            p2Hands[lane] = getMoves(board.getCards(Player.P2), Player.P2);
+            p1Cards[lane] = getCards(board.getCards(Player.P1));
+            p2Cards[lane] = getCards(board.getCards(Player.P2));
+            p1DealMoves[lane] = getDealMoves(board, Player.P1);
+            p2DealMoves[lane] = getDealMoves(board, Player.P2);
+            dealTables[lane] = DealTables.forBoard(board);
+
+            return lane;
+        }
+
+        public int size() {
+            return lanes;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void clear() {
+            lanes = 0;
+            Arrays.fill(dealTables, null);
+        }
+
+        private void clearCounts() {
+            Arrays.fill(kingHits, 0, lanes, 0);
+            Arrays.fill(kingHomeHits, 0, lanes, 0);
+            Arrays.fill(pawnHits, 0, lanes, 0);
+            Arrays.fill(reach, 0, lanes, 0);
+            Arrays.fill(pawnSquares, 0, lanes, 0);
+            Arrays.fill(opponentKingHits, 0, lanes, 0);
+            Arrays.fill(opponentKingHomeHits, 0, lanes, 0);
+            Arrays.fill(opponentPawnHits, 0, lanes, 0);
+        }
+
+        private static int getMoves(final List<Card> cards, final Player player) {
+            int moves = 0;
+            for (Card card : cards) {
+                moves |= card.getDestinationMask(player, CENTER);
+            }
+
+            return moves;
+        }
+
+        private static int getDealMoves(final Board board, final Player player) {
+            int moves = getMoves(board.getCards(Player.P1), player) | getMoves(board.getCards(Player.P2), player);
+            for (Player upcomingPlayer : Player.values()) {
+                moves |= board.getUpcomingCard(upcomingPlayer).getDestinationMask(player, CENTER);
+            }
+
+            return moves;
+        }
+
+        private static int getCards(final List<Card> cards) {
+            return cards.get(0).ordinal() | cards.get(1).ordinal() << CARD_BITS;
+        }
+
+        private static Card getCard(final int cards, final int slot) {
+            return CARDS[(cards >>> (slot * CARD_BITS)) & CARD_MASK];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.chesstama.backend.eval;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the nodes and time spent by a search against its limits, and holds the options of the search. The search
+ * polls {@link #countNode()} at every node and unwinds once it returns true, {@link #stop()} can be called from any
+ * thread to cancel the search.
+ *
+ * Every search thread has its own SearchControl, see {@link #newHelper()}. Node counts are local to the thread and
+ * added to a shared total every 1024 nodes, the stop flag is shared by all threads of a search.
+ *
+ * A child SearchControl, see {@link #newChild()}, has its own stop flag and is also stopped once its parent is, so
+ * that a part of a search can be aborted without stopping the rest of it.
+ */
+public class SearchControl {
+    // Time and the shared node total are only checked every 1024 nodes
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int CHECK_MASK = CHECK_INTERVAL - 1;
+
+    private final SearchLimits limits;
+    private final SearchOptions options;
+    private final long startTimeNanos;
+    private final AtomicBoolean stopped;
+    private final AtomicLong sharedNodes;
+    private final SearchControl parent;
+
+    private long nodes;
+    private long leafNodes;
+
+    /**
+     * @param limits Search limits, the search does not prune
+     */
+    public SearchControl(final SearchLimits limits) {
+        this(limits, SearchOptions.ANALYSIS);
+    }
+
+    public SearchControl(final SearchLimits limits, final SearchOptions options) {
+        this(limits, options, System.nanoTime(), new AtomicBoolean(), new AtomicLong(), null);
+    }
+
+    private SearchControl(final SearchLimits limits,
+                          final SearchOptions options,
+                          final long startTimeNanos,
+                          final AtomicBoolean stopped,
+                          final AtomicLong sharedNodes,
+                          final SearchControl parent) {
+        this.limits = limits;
+        this.options = options;
+        this.startTimeNanos = startTimeNanos;
+        this.stopped = stopped;
+        this.sharedNodes = sharedNodes;
+        this.parent = parent;
+    }
+
+    /**
+     * @return SearchControl for another thread of the same search, sharing the limits, clock and stop flag
+     */
+    public SearchControl newHelper() {
+        return new SearchControl(limits, options, startTimeNanos, stopped, sharedNodes, parent);
+    }
+
+    /**
+     * @return SearchControl for a part of the search, with its own stop flag, stopped along with this one
+     */
+    public SearchControl newChild() {
+        return new SearchControl(limits, options, startTimeNanos, new AtomicBoolean(), sharedNodes, this);
+    }
+
+    /**
+     * Counts a node and checks the limits
+     *
+     * @return true if the search has to stop
+     */
+    public boolean countNode() {
+        nodes++;
+
+        if (nodes >= limits.getNodeLimit()) {
+            stopSearch();
+        } else if ((nodes & CHECK_MASK) == 0
+            && (sharedNodes.addAndGet(CHECK_INTERVAL) >= limits.getNodeLimit()
+                || getElapsedMillis() >= limits.getTimeLimitMillis())) {
+            stopSearch();
+        }
+
+        return isStopped();
+    }
+
+    /**
+     * Counts a node at which the board got evaluated
+     */
+    public void countLeafNode() {
+        leafNodes++;
+    }
+
+    public boolean isStopped() {
+        return stopped.get() || parent != null && parent.isStopped();
+    }
+
+    /**
+     * Stops this SearchControl and its children
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Reaching a limit stops the whole search, not only the part this SearchControl belongs to
+     */
+    private void stopSearch() {
+        SearchControl root = this;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+
+        root.stop();
+    }
+
+    /**
+     * @return Nodes searched by this thread
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Nodes searched by all threads, threads other than this one are only counted every 1024 nodes
+     */
+    public long getTotalNodes() {
+        return sharedNodes.get() + (nodes & CHECK_MASK);
+    }
+
+    /**
+     * @return Leaf nodes searched by this thread
+     */
+    public long getLeafNodes() {
+        return leafNodes;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
+    }
+
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+}
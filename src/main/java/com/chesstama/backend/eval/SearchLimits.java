@@ -0,0 +1,66 @@
+package com.chesstama.backend.eval;
+
+/**
+ * Limits of a search, a search stops as soon as any of the limits is reached.
+ */
+public class SearchLimits {
+    public static final int DEFAULT_MAX_DEPTH = 64;
+
+    public static final SearchLimits NONE = new Builder().build();
+
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final long nodeLimit;
+
+    private SearchLimits(final Builder builder) {
+        this.maxDepth = builder.maxDepth;
+        this.timeLimitMillis = builder.timeLimitMillis;
+        this.nodeLimit = builder.nodeLimit;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{" +
+                "maxDepth=" + maxDepth +
+                ", timeLimitMillis=" + timeLimitMillis +
+                ", nodeLimit=" + nodeLimit +
+                '}';
+    }
+
+    public static final class Builder {
+        private int maxDepth = DEFAULT_MAX_DEPTH;
+        private long timeLimitMillis = Long.MAX_VALUE;
+        private long nodeLimit = Long.MAX_VALUE;
+
+        public Builder withMaxDepth(final int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder withTimeLimitMillis(final long timeLimitMillis) {
+            this.timeLimitMillis = timeLimitMillis;
+            return this;
+        }
+
+        public Builder withNodeLimit(final long nodeLimit) {
+            this.nodeLimit = nodeLimit;
+            return this;
+        }
+
+        public SearchLimits build() {
+            return new SearchLimits(this);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chesstama.backend.eval;
+
+/**
+ * Search options. Late move reductions, futility pruning and razoring make the search reach deeper within the same
+ * budget, at the risk of missing moves which only pay off late. ANALYSIS turns them off, so that a search to a given
+ * depth gives the exact alpha-beta result. Repeated positions are scored as draws, shifted by the contempt.
+ */
+public class SearchOptions {
+    public static final SearchOptions DEFAULT = new Builder().build();
+
+    public static final SearchOptions ANALYSIS = new Builder().withPruning(false).build();
+
+    private final boolean pruningEnabled;
+    private final int futilityMargin;
+    private final int razoringMargin;
+    private final int contempt;
+
+    private SearchOptions(final Builder builder) {
+        this.pruningEnabled = builder.pruningEnabled;
+        this.futilityMargin = builder.futilityMargin;
+        this.razoringMargin = builder.razoringMargin;
+        this.contempt = builder.contempt;
+    }
+
+    public boolean isPruningEnabled() {
+        return pruningEnabled;
+    }
+
+    /**
+     * @return Margin over the evaluation of a node one ply above the horizon, below which quiet moves are not searched
+     */
+    public int getFutilityMargin() {
+        return futilityMargin;
+    }
+
+    /**
+     * @return Margin over the evaluation of a node two plies above the horizon, below which only the winning moves
+     * and captures are searched
+     */
+    public int getRazoringMargin() {
+        return razoringMargin;
+    }
+
+    /**
+     * @return Score the player searching for gives up to avoid a repetition, i.e. a draw, negative to seek one
+     */
+    public int getContempt() {
+        return contempt;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchOptions{" +
+                "pruningEnabled=" + pruningEnabled +
+                ", futilityMargin=" + futilityMargin +
+                ", razoringMargin=" + razoringMargin +
+                ", contempt=" + contempt +
+                '}';
+    }
+
+    public static final class Builder {
+        private boolean pruningEnabled = true;
+        private int futilityMargin = (int) EvalRule.OPP_KING_CAPTURE.getScore();
+        private int razoringMargin = (int) EvalRule.OPP_KING_CAPTURE.getScore() * 3;
+        private int contempt;
+
+        public Builder withPruning(final boolean pruningEnabled) {
+            this.pruningEnabled = pruningEnabled;
+            return this;
+        }
+
+        public Builder withFutilityMargin(final int futilityMargin) {
+            this.futilityMargin = futilityMargin;
+            return this;
+        }
+
+        public Builder withRazoringMargin(final int razoringMargin) {
+            this.razoringMargin = razoringMargin;
+            return this;
+        }
+
+        public Builder withContempt(final int contempt) {
+            this.contempt = contempt;
+            return this;
+        }
+
+        public SearchOptions build() {
+            return new SearchOptions(this);
+        }
+    }
+}
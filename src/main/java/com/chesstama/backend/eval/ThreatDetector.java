@@ -0,0 +1,139 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+import java.util.List;
+
+/**
+ * Detects immediate wins and threats with reverse reach masks, i.e. the squares from which a piece of a player can
+ * reach a square with a card. A player threatens to win if one of its pieces reaches the opponent king, or if its king
+ * reaches the opponent king home, with one of the two cards in its hand.
+ *
+ * Playing a card does not change the hand of the opponent, so the threats of the opponent are known before moving.
+ */
+public final class ThreatDetector {
+    private static final int CARDS = Card.values().length;
+    private static final int PLAYERS = Player.values().length;
+
+    // Reverse reach masks indexed by [card][player][square], in board bit layout
+    private static final int[] REACH_MASKS = computeReachMasks();
+
+    private ThreatDetector() {
+    }
+
+    /**
+     * @param player Player playing the card
+     * @param card Card
+     * @param square 1D board position
+     * @return Board mask of the squares from which a piece of player reaches square with card
+     */
+    public static int getReachMask(final Player player, final Card card, final int square) {
+        return REACH_MASKS[getReachMaskIndex(card, player, square)];
+    }
+
+    /**
+     * @param board Board, not over
+     * @return true if the current player can win with its next move
+     */
+    public static boolean canWinNow(final Board board) {
+        return isWinThreatened(board, board.getCurrentPlayer());
+    }
+
+    /**
+     * @param board Board, not over
+     * @param player Player
+     * @return true if the opponent of player could win on its move, by capturing the king of player or by reaching
+     * its king home
+     */
+    public static boolean isThreatened(final Board board, final Player player) {
+        return isWinThreatened(board, player.getOpponent());
+    }
+
+    /**
+     * @param board Board, not over
+     * @param player Player
+     * @return true if a piece of the opponent of player reaches the king of player
+     */
+    public static boolean isKingAttacked(final Board board, final Player player) {
+        Player opponent = player.getOpponent();
+
+        return getAttackers(board, opponent, board.getKingMask(player), board.getPieceMask(opponent)) != 0;
+    }
+
+    /**
+     * @param board Board, not over
+     * @param player Player
+     * @return true if the king of the opponent of player reaches the king home of player
+     */
+    public static boolean isKingHomeAttacked(final Board board, final Player player) {
+        Player opponent = player.getOpponent();
+        int kingHome = Board.getKingSlotMask(player) & ~board.getPieceMask(opponent);
+
+        return getAttackers(board, opponent, kingHome, board.getKingMask(opponent)) != 0;
+    }
+
+    private static boolean isWinThreatened(final Board board, final Player attacker) {
+        Player defender = attacker.getOpponent();
+        int kingHome = Board.getKingSlotMask(defender) & ~board.getPieceMask(attacker);
+
+        return getAttackers(board, attacker, board.getKingMask(defender), board.getPieceMask(attacker)) != 0
+            || getAttackers(board, attacker, kingHome, board.getKingMask(attacker)) != 0;
+    }
+
+    /**
+     * @param targetMask Board mask of at most one square
+     * @param pieceMask Pieces of attacker to consider
+     * @return Board mask of the pieces in pieceMask which reach the target with a card in the hand of attacker
+     */
+    @SuppressWarnings("PMD.ForLoopCanBeForeach")
+    private static int getAttackers(final Board board,
+                                    final Player attacker,
+                                    final int targetMask,
+                                    final int pieceMask) {
+        if (targetMask == 0) {
+            return 0;
+        }
+
+        int square = BoardUtil.getSquareFromMask(targetMask);
+        List<Card> cards = board.getCards(attacker);
+        int attackers = 0;
+
+        // Indexed loop avoids allocating an iterator
+        for (int cardIndex = 0; cardIndex < cards.size(); cardIndex++) {
+            attackers |= getReachMask(attacker, cards.get(cardIndex), square);
+        }
+
+        return attackers & pieceMask;
+    }
+
+    private static int getReachMaskIndex(final Card card, final Player player, final int square) {
+        return (card.ordinal() * PLAYERS + player.ordinal()) * Board.MAX_SQUARES + square;
+    }
+
+    /**
+     * Inverts the destination masks of the cards, from reaches to
+     */
+    private static int[] computeReachMasks() {
+        int[] masks = new int[CARDS * PLAYERS * Board.MAX_SQUARES];
+
+        for (Card card : Card.values()) {
+            for (Player player : Player.values()) {
+                for (int from = 0; from < Board.MAX_SQUARES; from++) {
+                    int destinations = card.getDestinationMask(player, from);
+
+                    while (destinations != 0) {
+                        int to = BoardUtil.getSquareFromMask(destinations);
+                        destinations &= destinations - 1;
+
+                        masks[getReachMaskIndex(card, player, to)] |= BoardUtil.getBoardMask(from);
+                    }
+                }
+            }
+        }
+
+        return masks;
+    }
+}
@@ -0,0 +1,252 @@
+package com.chesstama.backend.eval;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table shared by searches, keyed by {@link com.chesstama.backend.engine.Board#getHashKey()}.
+ * Reference : https://www.chessprogramming.org/Transposition_Table
+ *
+ * Every slot holds two longs, the entry data and the key XOR-ed with the data. A reader only accepts an entry if
+ * key ^ data matches the key it probed with, so entries torn by concurrent writers are discarded instead of being
+ * misread and the table can be shared by several search threads without locking.
+ * Reference : https://www.chessprogramming.org/Shared_Hash_Table#Lockless
+ *
+ * Data bit layout (LSB first)
+ * (0-16)  : best move (see {@link PackedMove})
+ * (17-23) : depth
+ * (24-25) : bound
+ * (26-31) : age of the search which stored the entry
+ * (32-63) : score, relative to the player to move
+ *
+ * Replacement policy is depth-preferred, entries left over from previous searches are always replaced.
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE_IN_MB = 64;
+
+    public static final long MISS = -1L;
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    public static final int MAX_DEPTH = 127;
+
+    // A search visits about 4 times more nodes every ply, 1 MB holds the nodes of a search to depth 5
+    private static final int MIN_SIZE_IN_MB = 1;
+    private static final int MIN_SIZE_DEPTH = 5;
+
+    private static final int BYTES_PER_MB = 1024 * 1024;
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+    private static final int MOVE_BITS = 17;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+    private static final int DEPTH_SHIFT = MOVE_BITS;
+    private static final int DEPTH_MASK = MAX_DEPTH;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 7;
+    private static final int BOUND_MASK = 0x3;
+    private static final int AGE_SHIFT = BOUND_SHIFT + 2;
+    private static final int AGE_MASK = 0x3F;
+    private static final int SCORE_SHIFT = 32;
+
+    private final Slots slots;
+    private final long indexMask;
+
+    private int age;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_IN_MB, false);
+    }
+
+    /**
+     * @param sizeInMb Table size in MB, rounded down to a power of 2 number of entries
+     * @param offHeap Allocate the table outside the Java heap using direct buffers
+     */
+    public TranspositionTable(final long sizeInMb, final boolean offHeap) {
+        long entries = Long.highestOneBit(Math.max(1L, sizeInMb * BYTES_PER_MB / BYTES_PER_ENTRY));
+
+        this.slots = offHeap ? new OffHeapSlots(entries) : new HeapSlots(entries);
+        this.indexMask = entries - 1;
+    }
+
+    /**
+     * @param maxDepth Depth of the search the table is for
+     * @return Table sized for the nodes of a search to maxDepth, up to DEFAULT_SIZE_IN_MB, so that shallow searches do
+     * not allocate and clear a full size table
+     */
+    public static TranspositionTable forDepth(final int maxDepth) {
+        int doublings = 2 * (Math.min(maxDepth, MAX_DEPTH) - MIN_SIZE_DEPTH);
+        long sizeInMb = doublings <= 0 ? MIN_SIZE_IN_MB
+            : Math.min(DEFAULT_SIZE_IN_MB, (long) MIN_SIZE_IN_MB << Math.min(doublings, Integer.SIZE));
+
+        return new TranspositionTable(sizeInMb, false);
+    }
+
+    /**
+     * Marks the start of a new search, entries stored by previous searches become replaceable.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    public void clear() {
+        slots.clear();
+        age = 0;
+    }
+
+    public long getCapacity() {
+        return indexMask + 1;
+    }
+
+    /**
+     * @param key Position hash key
+     * @return Entry data for key or MISS
+     */
+    public long probe(final long key) {
+        long index = key & indexMask;
+        long data = slots.getData(index);
+
+        return (slots.getCheck(index) ^ data) == key ? data : MISS;
+    }
+
+    public void store(final long key,
+                      final int depth,
+                      final int bound,
+                      final int score,
+                      final int move) {
+        long index = key & indexMask;
+        long oldData = slots.getData(index);
+        boolean sameKey = (slots.getCheck(index) ^ oldData) == key;
+
+        if (!sameKey && getAge(oldData) == age && getDepth(oldData) > depth) {
+            return;
+        }
+
+        // Keep the previous best move if the new entry has none
+        int bestMove = move == PackedMove.NONE && sameKey ? getMove(oldData) : move;
+
+        long data = (long) score << SCORE_SHIFT
+            | (long) age << AGE_SHIFT
+            | (long) bound << BOUND_SHIFT
+            | (long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT
+            | bestMove & MOVE_MASK;
+
+        slots.put(index, key ^ data, data);
+    }
+
+    public static int getMove(final long data) {
+        return (int) data & MOVE_MASK;
+    }
+
+    public static int getDepth(final long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    public static int getBound(final long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    public static int getScore(final long data) {
+        return (int) (data >>> SCORE_SHIFT);
+    }
+
+    private static int getAge(final long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    private interface Slots {
+        long getCheck(long index);
+
+        long getData(long index);
+
+        void put(long index, long check, long data);
+
+        void clear();
+    }
+
+    private static final class HeapSlots implements Slots {
+        private final long[] checks;
+        private final long[] data;
+
+        public HeapSlots(final long entries) {
+            this.checks = new long[Math.toIntExact(entries)];
+            this.data = new long[Math.toIntExact(entries)];
+        }
+
+        @Override
+        public long getCheck(final long index) {
+            return checks[(int) index];
+        }
+
+        @Override
+        public long getData(final long index) {
+            return data[(int) index];
+        }
+
+        @Override
+        public void put(final long index, final long check, final long data) {
+            this.data[(int) index] = data;
+            this.checks[(int) index] = check;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(checks, 0L);
+            Arrays.fill(data, 0L);
+        }
+    }
+
+    /**
+     * Direct buffers are limited to 2GB, so the table is split into chunks of 2^26 entries (1GB).
+     * Check and data of an entry are stored next to each other.
+     */
+    private static final class OffHeapSlots implements Slots {
+        private static final int CHUNK_BITS = 26;
+        private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+        private final LongBuffer[] chunks;
+
+        @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+        public OffHeapSlots(final long entries) {
+            long chunkEntries = Math.min(entries, 1L << CHUNK_BITS);
+            int chunkCount = (int) (entries / chunkEntries);
+
+            this.chunks = new LongBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = ByteBuffer.allocateDirect((int) (chunkEntries * BYTES_PER_ENTRY))
+                                      .order(ByteOrder.nativeOrder())
+                                      .asLongBuffer();
+            }
+        }
+
+        @Override
+        public long getCheck(final long index) {
+            return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK) << 1);
+        }
+
+        @Override
+        public long getData(final long index) {
+            return chunks[(int) (index >>> CHUNK_BITS)].get(((int) (index & CHUNK_MASK) << 1) + 1);
+        }
+
+        @Override
+        public void put(final long index, final long check, final long data) {
+            LongBuffer chunk = chunks[(int) (index >>> CHUNK_BITS)];
+            int offset = (int) (index & CHUNK_MASK) << 1;
+
+            chunk.put(offset + 1, data);
+            chunk.put(offset, check);
+        }
+
+        @Override
+        public void clear() {
+            for (LongBuffer chunk : chunks) {
+                for (int i = 0; i < chunk.capacity(); i++) {
+                    chunk.put(i, 0L);
+                }
+            }
+        }
+    }
+}
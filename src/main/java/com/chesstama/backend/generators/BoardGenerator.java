@@ -4,6 +4,7 @@ import com.chesstama.backend.engine.Board;
 import com.chesstama.backend.engine.Card;
 import com.chesstama.backend.engine.Player;
 import com.chesstama.backend.eval.ScoreMoves;
+import com.chesstama.backend.eval.SearchLimits;
 import com.chesstama.backend.testers.MiniMaxTester;
 import com.google.common.collect.ImmutableSet;
 import lombok.extern.slf4j.Slf4j;
@@ -58,12 +59,17 @@ public class BoardGenerator {
         p1Cards.add(Card.DRAGON);
         p1Cards.add(Card.HORSE);
         chessTamaBoard.setUpcomingCard(Player.P1, Card.EMPTY);
+        chessTamaBoard.refreshHashKey();
 
         //Board chessTamaBoard = new Board.Builder().build();
         log.info("Board = {}", chessTamaBoard);
         Board chessTamaBoardCopy = chessTamaBoard.copy();
-        int maxDepth = 7;
-        ScoreMoves scoreMoves = MiniMaxTester.getMiniMaxWithAlphaBetaResult(chessTamaBoard, maxDepth);
+        SearchLimits limits = new SearchLimits.Builder()
+            .withMaxDepth(7)
+            .withTimeLimitMillis(10_000)
+            .build();
+        ScoreMoves scoreMoves = MiniMaxTester.getIterativeDeepeningResult(chessTamaBoard, limits,
+            Runtime.getRuntime().availableProcessors());
         log.info("ScoreMoves = {}", scoreMoves);
         log.info("Best Score = {}", scoreMoves.getScore().getTotalScore());
         log.info("Best Move = {}", scoreMoves.getMoves().get(0));
@@ -1,13 +1,21 @@
 package com.chesstama.backend.testers;
 
 import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.eval.EvaluationCache;
+import com.chesstama.backend.eval.Evaluator;
+import com.chesstama.backend.eval.IterativeDeepening;
 import com.chesstama.backend.eval.MiniMax;
 import com.chesstama.backend.eval.MiniMaxWithAlphaBeta;
+import com.chesstama.backend.eval.ParallelAlphaBeta;
 import com.chesstama.backend.eval.Score;
 import com.chesstama.backend.eval.ScoreMoves;
+import com.chesstama.backend.eval.SearchControl;
+import com.chesstama.backend.eval.SearchLimits;
+import com.chesstama.backend.eval.TranspositionTable;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 @Slf4j
 public class MiniMaxTester {
@@ -31,23 +39,57 @@ public class MiniMaxTester {
     }
 
     public static ScoreMoves getMiniMaxWithAlphaBetaResult(final Board board, final int maxDepth) {
-        MiniMaxWithAlphaBeta.LEAF_NODES_EVALUATED = 0;
         long startTime = System.currentTimeMillis();
 
         ScoreMoves alpha = new ScoreMoves(Score.MIN_SCORE, new ArrayList<>());
         ScoreMoves beta = new ScoreMoves(Score.MAX_SCORE, new ArrayList<>());
+        SearchControl searchControl = new SearchControl(SearchLimits.NONE);
 
         ScoreMoves scoreMoves = MiniMaxWithAlphaBeta.getBestMove(board, alpha, beta,
-            maxDepth, true, new ArrayList<>());
+            maxDepth, true, new ArrayList<>(), TranspositionTable.forDepth(maxDepth), searchControl);
         long endTime = System.currentTimeMillis();
 
         log.info("MiniMaxWithAlphaBeta - MaxDepth = {}, Time Taken = {} (secs), BestScoreMoves = {}", maxDepth, (endTime - startTime)/1000.0, scoreMoves);
-        log.info("MiniMaxWithAlphaBeta - Evaluated leaf nodes = {}", MiniMaxWithAlphaBeta.LEAF_NODES_EVALUATED);
+        log.info("MiniMaxWithAlphaBeta - Evaluated leaf nodes = {}", searchControl.getLeafNodes());
+        log.info("MiniMaxWithAlphaBeta - Principal variation leaf = {}",
+            Evaluator.explain(board, scoreMoves.getMoves(), board.getCurrentPlayer()));
 
-        MiniMaxWithAlphaBeta.LEAF_NODES_EVALUATED = 0;
+        return scoreMoves;
+
+    }
+
+    public static ScoreMoves getIterativeDeepeningResult(final Board board, final SearchLimits limits) {
+        return getIterativeDeepeningResult(board, limits, 1);
+    }
+
+    public static ScoreMoves getIterativeDeepeningResult(final Board board,
+                                                         final SearchLimits limits,
+                                                         final int threads) {
+        long startTime = System.currentTimeMillis();
+
+        IterativeDeepening iterativeDeepening = new IterativeDeepening(new TranspositionTable(), threads);
+        ScoreMoves scoreMoves = iterativeDeepening.search(board, limits);
+        long endTime = System.currentTimeMillis();
+
+        log.info("IterativeDeepening - Limits = {}, Threads = {}, Completed Depth = {}, Time Taken = {} (secs), BestScoreMoves = {}",
+            limits, threads, iterativeDeepening.getCompletedDepth(), (endTime - startTime)/1000.0, scoreMoves);
+        log.info("IterativeDeepening - Principal variation leaf = {}",
+            Evaluator.explain(board, scoreMoves.getMoves(), board.getCurrentPlayer()));
 
         return scoreMoves;
+    }
+
+    public static ScoreMoves getParallelAlphaBetaResult(final Board board, final int maxDepth) {
+        long startTime = System.currentTimeMillis();
 
+        ScoreMoves scoreMoves = new ParallelAlphaBeta(ForkJoinPool.commonPool(),
+            TranspositionTable.forDepth(maxDepth), EvaluationCache.forDepth(maxDepth)).getBestMove(board, maxDepth);
+        long endTime = System.currentTimeMillis();
+
+        log.info("ParallelAlphaBeta - Depth = {}, Time Taken = {} (secs), BestScoreMoves = {}",
+            maxDepth, (endTime - startTime)/1000.0, scoreMoves);
+
+        return scoreMoves;
     }
 
     private static ScoreMoves getMiniMaxWithAlphaBetaResult(final int maxDepth) {
@@ -7,13 +7,21 @@ public final class BoardUtil {
     private BoardUtil() {
     }
 
-    public static int get1DBoardPosition(final int piecePosition) {
+    public static int getSquareFromMask(final int pieceMask) {
         // Find the rightmost set bit using (N & ~(N-1))
-        int pos = BitMathUtil.log2(piecePosition & ~(piecePosition - 1));
+        int pos = BitMathUtil.log2(pieceMask & ~(pieceMask - 1));
         return Board.BOARD_INDEX_MAX - pos;
     }
 
+    public static int get1DBoardPosition(final Position position) {
+        return position.getRow() * Board.MAX_COLS + position.getCol();
+    }
+
     public static Position get2DBoardPosition(final int pos) {
         return new Position(pos / Board.MAX_ROWS, pos % Board.MAX_COLS);
     }
+
+    public static int getBoardMask(final int pos) {
+        return 1 << (Board.BOARD_INDEX_MAX - pos);
+    }
 }
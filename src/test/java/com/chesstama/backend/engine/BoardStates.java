@@ -0,0 +1,45 @@
+package com.chesstama.backend.engine;
+
+/**
+ * Descriptions of the full state of boards, to compare boards field by field in tests.
+ */
+public final class BoardStates {
+    private BoardStates() {
+    }
+
+    /**
+     * @param board Board
+     * @return Pieces, cards in hand order, upcoming cards, player to move, game result and hash key of board
+     */
+    public static String describe(final Board board) {
+        StringBuilder description = new StringBuilder().append(board);
+
+        for (Player player : Player.values()) {
+            description.append(' ').append(player)
+                .append(' ').append(board.getCards(player))
+                .append(' ').append(board.getUpcomingCard(player));
+        }
+
+        return description.append(' ').append(board.getCurrentPlayer())
+            .append(' ').append(board.isGameOver())
+            .append(' ').append(board.getGameWinner())
+            .append(' ').append(Long.toHexString(board.getHashKey()))
+            .toString();
+    }
+
+    /**
+     * @param board Board, not modified
+     * @return Description of board followed by the ones of the boards before every move that can be unmade
+     */
+    public static String describeHistory(final Board board) {
+        Board previous = board.copy();
+        StringBuilder description = new StringBuilder().append(describe(previous));
+
+        while (previous.getUndoDepth() > 0) {
+            previous.unmakeMove();
+            description.append('\n').append(describe(previous));
+        }
+
+        return description.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.chesstama.backend.engine;
+
+import com.chesstama.backend.eval.MoveGenerator;
+import com.chesstama.backend.eval.RandomGames;
+import com.chesstama.backend.eval.RepetitionCycle;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class BoardTest {
+    private static final long SEED = 4L;
+    private static final int GAMES = 60;
+    private static final int MAX_PLIES = 40;
+
+    /**
+     * Every move of positions reached after a game is made and unmade, the board and the moves made before it must be
+     * restored
+     */
+    @Test
+    public void testUnmakeMoveRestoresBoardAndUndoHistory() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (Board board : RandomGames.getPositions(SEED, GAMES, MAX_PLIES)) {
+            if (board.isGameOver()) {
+                continue;
+            }
+
+            String history = BoardStates.describeHistory(board);
+            int count = MoveGenerator.generateMoves(board, moves);
+
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                board.unmakeMove();
+
+                assertEquals(BoardStates.describeHistory(board), history);
+            }
+        }
+    }
+
+    /**
+     * The start position of the cycle is repeated by its last move only, and no longer once that move is unmade
+     */
+    @Test
+    public void testIsRepetitionAtEndOfCycle() {
+        Board board = RepetitionCycle.newBoard();
+        boolean[] repetitions = new boolean[RepetitionCycle.PLIES + 1];
+
+        for (int ply = 0; ply < RepetitionCycle.PLIES; ply++) {
+            board.makeMove(RepetitionCycle.getMove(ply));
+            repetitions[ply] = board.isRepetition();
+        }
+        board.unmakeMove();
+        repetitions[RepetitionCycle.PLIES] = board.isRepetition();
+
+        assertEquals(Arrays.toString(repetitions), "[false, false, false, false, false, true, false]");
+    }
+
+    /**
+     * Copies keep the positions the board went through
+     */
+    @Test
+    public void testIsRepetitionOnCopyMadeWithinCycle() {
+        Board board = RepetitionCycle.newBoard();
+        for (int ply = 0; ply < RepetitionCycle.PLIES - 1; ply++) {
+            board.makeMove(RepetitionCycle.getMove(ply));
+        }
+
+        Board copy = board.copy();
+        copy.makeMove(RepetitionCycle.getMove(RepetitionCycle.PLIES - 1));
+
+        assertTrue(copy.isRepetition());
+    }
+}
@@ -0,0 +1,48 @@
+package com.chesstama.backend.engine;
+
+import com.chesstama.backend.eval.RandomGames;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class PackedPositionTest {
+    private static final long SEED = 4L;
+    private static final int GAMES = 100;
+    private static final int MAX_PLIES = 40;
+
+    private static final List<Board> POSITIONS = RandomGames.getPositions(SEED, GAMES, MAX_PLIES);
+
+    /**
+     * Positions are restored on a board of another game with moves made, none of its state must be left over
+     */
+    @Test
+    public void testRestoreOverwritesBoard() {
+        Board previous = POSITIONS.get(POSITIONS.size() - 1);
+
+        for (Board position : POSITIONS) {
+            Board board = previous.copy();
+            Card[] deal = PackedPosition.getDeal(position);
+            PackedPosition.restore(board, PackedPosition.getP1Word(position, deal),
+                PackedPosition.getP2Word(position, deal), deal);
+
+            assertEquals(BoardStates.describeHistory(board), BoardStates.describe(position));
+            previous = position;
+        }
+    }
+
+    @Test
+    public void testUnpackMatchesPackedBoard() {
+        long[] positions = new long[PackedPosition.WORDS * POSITIONS.size()];
+
+        for (int i = 0; i < POSITIONS.size(); i++) {
+            Card[] deal = PackedPosition.getDeal(POSITIONS.get(i));
+            PackedPosition.pack(POSITIONS.get(i), deal, positions, i);
+
+            assertEquals(BoardStates.describe(PackedPosition.unpack(positions, i, deal)),
+                BoardStates.describe(POSITIONS.get(i)));
+        }
+    }
+}
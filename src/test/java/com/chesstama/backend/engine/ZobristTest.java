@@ -0,0 +1,42 @@
+package com.chesstama.backend.engine;
+
+import com.chesstama.backend.eval.MoveGenerator;
+import com.chesstama.backend.eval.RandomGames;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ZobristTest {
+    private static final long SEED = 3L;
+    private static final int GAMES = 300;
+    private static final int MAX_PLIES = 60;
+
+    /**
+     * Moves are made and unmade at random on the same board, the key updated along them must be the one
+     * {@link Board#refreshHashKey()} computes from scratch
+     */
+    @Test
+    public void testHashKeyMatchesComputedHashKey() {
+        Random random = new Random(SEED);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int game = 0; game < GAMES; game++) {
+            Board board = RandomGames.newBoard(random);
+
+            for (int ply = 0; ply < MAX_PLIES; ply++) {
+                int count = board.isGameOver() ? 0 : MoveGenerator.generateMoves(board, moves);
+
+                if (count == 0 || board.getUndoDepth() > 0 && random.nextInt(3) == 0) {
+                    board.unmakeMove();
+                } else {
+                    board.makeMove(moves[random.nextInt(count)]);
+                }
+
+                assertEquals(board.getHashKey(), Zobrist.computeHashKey(board), board.toString());
+            }
+        }
+    }
+}
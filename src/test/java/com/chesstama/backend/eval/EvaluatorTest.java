@@ -0,0 +1,208 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.Player;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class EvaluatorTest {
+    private static final long SEED = 19L;
+    private static final int GAMES = 300;
+    private static final int MAX_PLIES = 40;
+
+    // Windows of the bounded evaluations, around the total score
+    private static final long[] WINDOW_OFFSETS = {-300_000L, -20_000L, -500L, -1L, 0L, 1L, 500L, 20_000L, 300_000L};
+
+    private static final Set<EvalRule> DEAL_TERMS = EnumSet.of(EvalRule.PAWN_SQUARE,
+        EvalRule.OPP_KING_HOME_PROXIMITY, EvalRule.KING_HOME_PROXIMITY);
+
+    private static final List<Board> POSITIONS = RandomGames.getPositions(SEED, GAMES, MAX_PLIES);
+
+    @Test
+    public void testExplainMatchesReferenceEvaluator() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                assertEquals(describe(Evaluator.explain(board, player)),
+                    describe(ReferenceEvaluator.explain(board, player)), getMessage(board, player));
+            }
+        }
+    }
+
+    /**
+     * The terms of the deal tables are not tuned, by default the totals are the ones of the rules scored before them
+     */
+    @Test
+    public void testDealTermsDoNotScoreByDefault() {
+        if (Boolean.getBoolean(EvalRule.DEAL_TERMS_PROPERTY)) {
+            throw new SkipException("Deal terms are enabled");
+        }
+
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                assertEquals(Evaluator.evaluate(board, player),
+                    getTotalWithoutDealTerms(ReferenceEvaluator.explain(board, player)), getMessage(board, player));
+            }
+        }
+    }
+
+    /**
+     * The positions are copies of boards the moves were made on, so their scores come from the incremental terms
+     */
+    @Test
+    public void testEvaluateMatchesExplain() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                assertEquals(Evaluator.evaluate(board, player), Evaluator.explain(board, player).getTotalScore(),
+                    getMessage(board, player));
+            }
+        }
+    }
+
+    /**
+     * Moves are made and unmade at random on the same board, the incremental terms must follow both ways
+     */
+    @Test
+    public void testEvaluateMatchesExplainAfterUnmakeMove() {
+        Random random = new Random(SEED);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int game = 0; game < GAMES; game++) {
+            Board board = RandomGames.newBoard(random);
+
+            for (int ply = 0; ply < MAX_PLIES; ply++) {
+                int count = board.isGameOver() ? 0 : MoveGenerator.generateMoves(board, moves);
+
+                if (count == 0 || board.getUndoDepth() > 0 && random.nextInt(3) == 0) {
+                    board.unmakeMove();
+                } else {
+                    board.makeMove(moves[random.nextInt(count)]);
+                }
+
+                Player player = Player.values()[random.nextInt(Player.values().length)];
+                assertEquals(Evaluator.evaluate(board, player), Evaluator.explain(board, player).getTotalScore(),
+                    getMessage(board, player));
+            }
+        }
+    }
+
+    /**
+     * The boards were evaluated with the deal before the upcoming card changed, their terms must follow the new deal
+     */
+    @Test
+    public void testEvaluateMatchesReferenceEvaluatorAfterSetUpcomingCard() {
+        for (Board board : getPositionsWithNewUpcomingCard()) {
+            for (Player player : Player.values()) {
+                assertEquals(Evaluator.evaluate(board, player),
+                    ReferenceEvaluator.explain(board, player).getTotalScore(), getMessage(board, player));
+            }
+        }
+    }
+
+    @Test
+    public void testAccumulatorIsConsistentAfterSetUpcomingCard() {
+        for (Board board : getPositionsWithNewUpcomingCard()) {
+            assertTrue(board.getEvalAccumulator().isConsistent(board), board.toString());
+        }
+    }
+
+    @Test
+    public void testBoundedEvaluateIsOnTheSideOfTheWindow() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                long score = Evaluator.explain(board, player).getTotalScore();
+
+                for (long alphaOffset : WINDOW_OFFSETS) {
+                    for (long betaOffset : WINDOW_OFFSETS) {
+                        long alpha = score + alphaOffset;
+                        long beta = Math.max(alpha + 1, score + betaOffset);
+                        long bound = Evaluator.evaluate(board.copy(), player, alpha, beta);
+
+                        assertTrue(bound == score || bound <= alpha && score <= bound || bound >= beta && score >= bound,
+                            getMessage(board, player) + " in (" + alpha + ", " + beta + "): " + bound + " / " + score);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Total and non zero rule counts of score
+     */
+    private static String describe(final Score score) {
+        StringBuilder description = new StringBuilder().append(score.getTotalScore());
+
+        for (EvalRule evalRule : EvalRule.values()) {
+            int count = score.getScoreMap().getOrDefault(evalRule, 0);
+            if (count != 0) {
+                description.append(' ').append(evalRule.name()).append('=').append(count);
+            }
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * @return Copies of the positions which are not over, evaluated for both players, then given an upcoming card out
+     * of their deal
+     */
+    private static List<Board> getPositionsWithNewUpcomingCard() {
+        List<Board> positions = new ArrayList<>();
+
+        for (Board position : POSITIONS) {
+            if (position.isGameOver()) {
+                continue;
+            }
+
+            Board board = position.copy();
+            for (Player player : Player.values()) {
+                Evaluator.evaluate(board, player);
+            }
+
+            Player player = board.getUpcomingCard(Player.P1) == Card.EMPTY ? Player.P2 : Player.P1;
+            board.setUpcomingCard(player, getCardOutOfDeal(board));
+            positions.add(board);
+        }
+
+        return positions;
+    }
+
+    private static Card getCardOutOfDeal(final Board board) {
+        Set<Card> deal = EnumSet.of(Card.EMPTY, board.getUpcomingCard(Player.P1), board.getUpcomingCard(Player.P2));
+        for (Player player : Player.values()) {
+            deal.addAll(board.getCards(player));
+        }
+
+        return EnumSet.complementOf(EnumSet.copyOf(deal)).iterator().next();
+    }
+
+    private static long getTotalWithoutDealTerms(final Score score) {
+        if (score.getScoreMap().isEmpty()) {
+            return score.getTotalScore();
+        }
+
+        long total = 0;
+        for (Map.Entry<EvalRule, Integer> ruleCount : score.getScoreMap().entrySet()) {
+            if (!DEAL_TERMS.contains(ruleCount.getKey())) {
+                total += ruleCount.getKey().getScore() * ruleCount.getValue();
+            }
+        }
+
+        return total;
+    }
+
+    private static String getMessage(final Board board, final Player player) {
+        return board + " for " + player;
+    }
+}
@@ -0,0 +1,64 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * The limits are checked with helper threads running, the search only returns once they are stopped
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class IterativeDeepeningTest {
+    private static final int THREADS = 4;
+    private static final int MAX_DEPTH = 3;
+    private static final long TIME_LIMIT_MILLIS = 200;
+    // Nodes are counted, and the clock read, every 1024 nodes per thread
+    private static final long TIME_TOLERANCE_MILLIS = 500;
+    private static final int HELPERS = 19;
+    private static final int SKIP_DEPTHS = 32;
+
+    @Test
+    public void testSearchStopsAtMaxDepth() {
+        IterativeDeepening iterativeDeepening = new IterativeDeepening(new TranspositionTable(1, false), THREADS);
+        iterativeDeepening.search(new Board.Builder().build(),
+            new SearchLimits.Builder().withMaxDepth(MAX_DEPTH).build(), SearchOptions.ANALYSIS);
+
+        assertEquals(iterativeDeepening.getCompletedDepth(), MAX_DEPTH);
+    }
+
+    @Test
+    public void testSearchStopsAtTimeLimit() {
+        IterativeDeepening iterativeDeepening = new IterativeDeepening(new TranspositionTable(1, false), THREADS);
+        long startMillis = System.currentTimeMillis();
+        iterativeDeepening.search(new Board.Builder().build(),
+            new SearchLimits.Builder().withTimeLimitMillis(TIME_LIMIT_MILLIS).build());
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        assertTrue(elapsedMillis < TIME_LIMIT_MILLIS + TIME_TOLERANCE_MILLIS,
+            "Elapsed = " + elapsedMillis + " ms, completed depth = " + iterativeDeepening.getCompletedDepth());
+    }
+
+    /**
+     * Helpers starting one ply apart only give two different sequences of depths
+     */
+    @Test
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void testHelpersSearchDifferentDepths() {
+        Set<String> depthSequences = new HashSet<>();
+
+        for (int helperIndex = 1; helperIndex <= HELPERS; helperIndex++) {
+            StringBuilder depths = new StringBuilder();
+            for (int depth = 1; depth <= SKIP_DEPTHS; depth++) {
+                depths.append(IterativeDeepening.isSearchedByHelper(helperIndex, depth) ? '1' : '0');
+            }
+            depthSequences.add(depths.toString());
+        }
+
+        assertEquals(depthSequences.size(), HELPERS);
+    }
+}
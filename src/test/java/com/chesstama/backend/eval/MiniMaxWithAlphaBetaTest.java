@@ -0,0 +1,52 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+/**
+ * P2 is one move away from repeating the start of the RepetitionCycle, a contempt much larger than the evaluation
+ * decides whether it goes for the draw
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class MiniMaxWithAlphaBetaTest {
+    private static final int CONTEMPT = 10_000_000;
+    // The repetition is only checked above the horizon
+    private static final int DEPTH = 2;
+    private static final int REPEATING_PLY = RepetitionCycle.PLIES - 1;
+
+    @Test
+    public void testRepetitionIsScoredAsDraw() {
+        ScoreMoves scoreMoves = search(-CONTEMPT);
+
+        assertEquals(scoreMoves.getScore().getTotalScore(), CONTEMPT);
+    }
+
+    @Test
+    public void testRepetitionIsSoughtWithNegativeContempt() {
+        ScoreMoves scoreMoves = search(-CONTEMPT);
+
+        assertEquals(scoreMoves.getMoves().get(0), PackedMove.toMove(RepetitionCycle.getMove(REPEATING_PLY)));
+    }
+
+    @Test
+    public void testRepetitionIsAvoidedWithPositiveContempt() {
+        ScoreMoves scoreMoves = search(CONTEMPT);
+
+        assertNotEquals(scoreMoves.getMoves().get(0), PackedMove.toMove(RepetitionCycle.getMove(REPEATING_PLY)));
+    }
+
+    private static ScoreMoves search(final int contempt) {
+        Board board = RepetitionCycle.newBoard();
+        for (int ply = 0; ply < REPEATING_PLY; ply++) {
+            board.makeMove(RepetitionCycle.getMove(ply));
+        }
+
+        SearchOptions options = new SearchOptions.Builder().withPruning(false).withContempt(contempt).build();
+
+        return MiniMaxWithAlphaBeta.search(board, DEPTH, TranspositionTable.forDepth(DEPTH),
+            EvaluationCache.forDepth(DEPTH), new MoveOrderer(), new SearchControl(SearchLimits.NONE, options));
+    }
+}
@@ -0,0 +1,128 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class MovePickerTest {
+    private static final long SEED = 11L;
+    private static final int GAMES = 80;
+    private static final int MAX_PLIES = 40;
+    private static final int PLY = 3;
+    private static final int DEPTH = 4;
+
+    private static final List<Board> POSITIONS = RandomGames.getPositions(SEED, GAMES, MAX_PLIES);
+
+    @Test
+    public void testPicksTheMovesOfMoveGenerator() {
+        MovePicker movePicker = new MovePicker(new MoveOrderer());
+
+        for (Board board : POSITIONS) {
+            if (board.isGameOver()) {
+                continue;
+            }
+
+            movePicker.init(board, PackedMove.NONE, PLY);
+            assertEquals(getPickedMoves(movePicker), getGeneratedMoves(board), board.toString());
+        }
+    }
+
+    /**
+     * The quiescence search only picks the moves which capture or win
+     */
+    @Test
+    public void testPicksTheTacticalMovesOfMoveGenerator() {
+        MovePicker movePicker = new MovePicker(new MoveOrderer());
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (Board board : POSITIONS) {
+            if (board.isGameOver()) {
+                continue;
+            }
+
+            int count = MoveGenerator.generateMoves(board, moves);
+            int tacticalCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (!MoveOrderer.isQuiet(board, moves[i])) {
+                    moves[tacticalCount++] = moves[i];
+                }
+            }
+
+            movePicker.initTactical(board, PLY);
+            assertEquals(getPickedMoves(movePicker), getSortedMoves(moves, tacticalCount), board.toString());
+        }
+    }
+
+    @Test
+    public void testFixedOrderHasTheMovesOfMoveGenerator() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (Board board : POSITIONS) {
+            if (board.isGameOver()) {
+                continue;
+            }
+
+            int count = MovePicker.generateFixedOrder(board, moves);
+            assertEquals(getSortedMoves(moves, count), getGeneratedMoves(board), board.toString());
+        }
+    }
+
+    /**
+     * Hash and killer moves come from other positions or from the position itself, the picker must neither repeat
+     * them nor search them where they are not legal
+     */
+    @Test
+    public void testPicksEveryMoveOnceWithStaleHashAndKillerMoves() {
+        Random random = new Random(SEED);
+        MoveOrderer moveOrderer = new MoveOrderer();
+        MovePicker movePicker = new MovePicker(moveOrderer);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int staleMove = PackedMove.NONE;
+
+        for (Board board : POSITIONS) {
+            if (board.isGameOver()) {
+                continue;
+            }
+
+            int count = MoveGenerator.generateMoves(board, moves);
+            int ownMove = moves[random.nextInt(count)];
+
+            // Killers are only recorded for quiet moves of the board they cut off on
+            moveOrderer.updateCutoff(board, moves[random.nextInt(count)], DEPTH, PLY);
+            movePicker.init(board, random.nextBoolean() ? ownMove : staleMove, PLY);
+
+            assertEquals(getPickedMoves(movePicker), getGeneratedMoves(board), board.toString());
+            staleMove = ownMove;
+        }
+    }
+
+    private static String getPickedMoves(final MovePicker movePicker) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES + MoveOrderer.KILLERS_PER_PLY + 1];
+        int count = 0;
+
+        for (int move = movePicker.nextMove(); move != PackedMove.NONE; move = movePicker.nextMove()) {
+            moves[count++] = move;
+        }
+
+        return getSortedMoves(moves, count);
+    }
+
+    private static String getGeneratedMoves(final Board board) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        return getSortedMoves(moves, MoveGenerator.generateMoves(board, moves));
+    }
+
+    private static String getSortedMoves(final int[] moves, final int count) {
+        int[] sortedMoves = Arrays.copyOf(moves, count);
+        Arrays.sort(sortedMoves);
+
+        return Arrays.toString(sortedMoves);
+    }
+}
@@ -0,0 +1,90 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ParallelAlphaBetaTest {
+    private static final long SEED = 14L;
+    private static final int GAMES = 20;
+    private static final int MAX_PLIES = 40;
+    private static final int DEPTH = 4;
+    private static final int PARALLELISM = 4;
+
+    /**
+     * Root moves of equal score are frequent once a win is found, both searches pick the first one in the fixed order
+     * of {@link MovePicker#generateFixedOrder(Board, int[])}
+     */
+    @Test
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void testSameBestMoveAsSerialSearch() {
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        ScoreMoves alpha = new ScoreMoves(Score.MIN_SCORE, new ArrayList<>());
+        ScoreMoves beta = new ScoreMoves(Score.MAX_SCORE, new ArrayList<>());
+
+        try {
+            for (Board board : getPositions()) {
+                ScoreMoves serial = MiniMaxWithAlphaBeta.getBestMove(board, alpha, beta, DEPTH, true,
+                    new ArrayList<>());
+                ScoreMoves parallel = newSearch(pool).getBestMove(board, DEPTH);
+
+                assertEquals(getScoreAndBestMove(parallel), getScoreAndBestMove(serial), board.toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A search reusing its tables returns the same result as the first search of the position, even once a deeper
+     * search of the position left deeper entries in the transposition table
+     */
+    @Test
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void testSameResultOnRepeatedSearch() {
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+
+        try {
+            for (Board board : getPositions()) {
+                ParallelAlphaBeta parallelSearch = newSearch(pool);
+                ScoreMoves first = parallelSearch.getBestMove(board, DEPTH);
+                parallelSearch.getBestMove(board, DEPTH + 1);
+                ScoreMoves second = parallelSearch.getBestMove(board, DEPTH);
+
+                assertEquals(getScoreAndBestMove(second), getScoreAndBestMove(first), board.toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return Search with tables of its own
+     */
+    private static ParallelAlphaBeta newSearch(final ForkJoinPool pool) {
+        return new ParallelAlphaBeta(pool, TranspositionTable.forDepth(DEPTH), EvaluationCache.forDepth(DEPTH));
+    }
+
+    private static List<Board> getPositions() {
+        List<Board> positions = new ArrayList<>();
+        for (Board board : RandomGames.getPositions(SEED, GAMES, MAX_PLIES)) {
+            if (!board.isGameOver()) {
+                positions.add(board);
+            }
+        }
+
+        return positions;
+    }
+
+    private static String getScoreAndBestMove(final ScoreMoves scoreMoves) {
+        List<Move> moves = scoreMoves.getMoves();
+
+        return scoreMoves.getScore().getTotalScore() + " " + (moves.isEmpty() ? null : moves.get(0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Positions of games played with random moves from random deals, the same ones for a given seed.
+ */
+public final class RandomGames {
+    private static final int DEAL_SIZE = 5;
+
+    private RandomGames() {
+    }
+
+    /**
+     * @param seed Seed of the deals and moves
+     * @param games Number of games
+     * @param maxPlies Plies after which a game is left
+     * @return Every position of the games, including the ones where the game is over
+     */
+    public static List<Board> getPositions(final long seed, final int games, final int maxPlies) {
+        Random random = new Random(seed);
+        List<Board> positions = new ArrayList<>();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int game = 0; game < games; game++) {
+            Board board = newBoard(random);
+
+            for (int ply = 0; ply < maxPlies && !board.isGameOver(); ply++) {
+                int count = MoveGenerator.generateMoves(board, moves);
+                if (count == 0) {
+                    break;
+                }
+
+                board.makeMove(moves[random.nextInt(count)]);
+                positions.add(board.copy());
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * @return Board in the starting position with a random deal
+     */
+    public static Board newBoard(final Random random) {
+        List<Card> cards = new ArrayList<>(Arrays.asList(Card.values()));
+        cards.remove(Card.EMPTY);
+        Collections.shuffle(cards, random);
+
+        return new Board.Builder()
+            .withP1Cards(new ArrayList<>(cards.subList(0, 2)))
+            .withP2Cards(new ArrayList<>(cards.subList(2, 4)))
+            .withP1UpcomingCard(cards.get(DEAL_SIZE - 1))
+            .withP2UpcomingCard(Card.EMPTY)
+            .build();
+    }
+}
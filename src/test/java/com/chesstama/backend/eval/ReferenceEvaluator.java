@@ -0,0 +1,129 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.engine.Position;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluator on Position sets, as it was before {@link Evaluator} moved to board masks, with the terms of the
+ * {@link DealTables} added since, counted but only scored once enabled (see {@link EvalRule}). Every move of every
+ * piece is tried one by one, so it is slow but easy to check.
+ */
+public final class ReferenceEvaluator {
+    private ReferenceEvaluator() {
+    }
+
+    /**
+     * @param board Board
+     * @param player Player to evaluate the board for
+     * @return Score with the count of every rule, as {@link Evaluator#explain(Board, Player)}
+     */
+    public static Score explain(final Board board, final Player player) {
+        if (board.isGameOver()) {
+            return board.getGameWinner().get() == player ? Score.GAME_WON_SCORE : Score.GAME_LOST_SCORE;
+        }
+
+        Player opponent = player.getOpponent();
+        Score score = new Score();
+
+        addPieceScores(board, player, score, EvalRule.OPP_KING_CAPTURE, EvalRule.OPP_KING_HOME,
+            EvalRule.OPP_PAWN_CAPTURE);
+        addPieceScores(board, opponent, score, EvalRule.KING_CAPTURE, EvalRule.KING_HOME, EvalRule.PAWN_CAPTURE);
+        addMobilityScore(board, player, score);
+        addDealScores(board, player, score);
+
+        return score;
+    }
+
+    /**
+     * Adds the king captures of all the pieces of mover, its king reaching the opponent king home and the pawn
+     * captures of all its pieces
+     */
+    private static void addPieceScores(final Board board,
+                                       final Player mover,
+                                       final Score score,
+                                       final EvalRule kingCapture,
+                                       final EvalRule kingHome,
+                                       final EvalRule pawnCapture) {
+        Player opponent = mover.getOpponent();
+        Position king = board.getKingPosition(mover);
+        Position opponentKing = board.getKingPosition(opponent);
+        Position opponentKingHome = mover == Player.P1 ? Board.P2_KING_SLOT : Board.P1_KING_SLOT;
+        Set<Position> opponentPawns = board.getPawnPositions(opponent);
+
+        for (Position piece : getPiecePositions(board, mover)) {
+            for (Position destination : getDestinations(board, mover, piece)) {
+                if (destination.equals(opponentKing)) {
+                    score.add(kingCapture);
+                }
+
+                if (piece.equals(king) && destination.equals(opponentKingHome)) {
+                    score.add(kingHome);
+                }
+
+                if (opponentPawns.contains(destination)) {
+                    score.add(pawnCapture);
+                }
+            }
+        }
+    }
+
+    private static void addMobilityScore(final Board board, final Player player, final Score score) {
+        Set<Position> uniqueDestinations = new HashSet<>();
+
+        for (Position piece : getPiecePositions(board, player)) {
+            uniqueDestinations.addAll(getDestinations(board, player, piece));
+        }
+
+        score.add(EvalRule.UNIQUE_MOVE, uniqueDestinations.size());
+    }
+
+    private static void addDealScores(final Board board, final Player player, final Score score) {
+        DealTables dealTables = DealTables.forBoard(board);
+        int pawnSquares = 0;
+
+        for (Position pawn : board.getPawnPositions(player)) {
+            pawnSquares += dealTables.getSquareValue(player, pawn.getRow() * Board.MAX_COLS + pawn.getCol());
+        }
+
+        score.add(EvalRule.PAWN_SQUARE, pawnSquares);
+        score.add(EvalRule.OPP_KING_HOME_PROXIMITY, dealTables.getKingHomeProximity(board, player));
+        score.add(EvalRule.KING_HOME_PROXIMITY, dealTables.getKingHomeProximity(board, player.getOpponent()));
+    }
+
+    /**
+     * @return Squares piece reaches with the cards of player, without the ones of its own pieces
+     */
+    private static List<Position> getDestinations(final Board board, final Player player, final Position piece) {
+        Set<Position> relativeMoves = new HashSet<>();
+        for (Card card : board.getCards(player)) {
+            relativeMoves.addAll(card.getRelativeMoves(player));
+        }
+
+        Set<Position> pieces = getPiecePositions(board, player);
+        List<Position> destinations = new ArrayList<>();
+
+        for (Position relativeMove : relativeMoves) {
+            Position destination = piece.add(relativeMove);
+
+            if (destination.isValid() && !pieces.contains(destination)) {
+                destinations.add(destination);
+            }
+        }
+
+        return destinations;
+    }
+
+    private static Set<Position> getPiecePositions(final Board board, final Player player) {
+        Set<Position> pieces = new HashSet<>(board.getPawnPositions(player));
+        pieces.add(board.getKingPosition(player));
+
+        return pieces;
+    }
+}
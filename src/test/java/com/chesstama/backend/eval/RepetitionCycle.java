@@ -0,0 +1,48 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+
+/**
+ * Kings only game of the default deal, in which the kings walk back to their squares and the cards back to their
+ * hands. No position of it can be won on the next move.
+ */
+public final class RepetitionCycle {
+    public static final int PLIES = 6;
+
+    private static final int P1_KING_SQUARE = 15;
+    private static final int P2_KING_SQUARE = 5;
+
+    private static final Card[] CARDS = {Card.ELEPHANT, Card.MANTIS, Card.TIGER, Card.ELEPHANT, Card.MANTIS,
+        Card.TIGER};
+    private static final int[] FROM_SQUARES = {15, 5, 16, 11, 21, 10};
+    private static final int[] TO_SQUARES = {16, 11, 21, 10, 15, 5};
+
+    private RepetitionCycle() {
+    }
+
+    /**
+     * @return Board at the start of the cycle, P1 to move
+     */
+    public static Board newBoard() {
+        return new Board.Builder()
+            .withP1King(BoardUtil.getBoardMask(P1_KING_SQUARE))
+            .withP1Pawns(0)
+            .withP2King(BoardUtil.getBoardMask(P2_KING_SQUARE))
+            .withP2Pawns(0)
+            .build();
+    }
+
+    /**
+     * @param ply Ply of the cycle, from 0 to PLIES - 1
+     * @return Move made at ply
+     */
+    public static int getMove(final int ply) {
+        Player player = ply % 2 == 0 ? Player.P1 : Player.P2;
+
+        return PackedMove.encode(player, CARDS[ply], PieceType.KING, FROM_SQUARES[ply], TO_SQUARES[ply]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Player;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ScalarBatchEvaluatorTest {
+    private static final long SEED = 25L;
+    private static final int GAMES = 40;
+    private static final int MAX_PLIES = 30;
+    private static final int BLOCK_CAPACITY = 64;
+
+    /**
+     * Blocks are reused once full, so that lanes left over from a previous block would show up
+     */
+    @Test
+    public void testEvaluateMatchesEvaluator() {
+        List<Board> boards = new ArrayList<>();
+        for (Board board : RandomGames.getPositions(SEED, GAMES, MAX_PLIES)) {
+            if (!board.isGameOver()) {
+                boards.add(board);
+            }
+        }
+
+        long[] expectedScores = new long[boards.size() * Player.values().length];
+        long[] scores = new long[expectedScores.length];
+        ScalarBatchEvaluator.Block block = new ScalarBatchEvaluator.Block(BLOCK_CAPACITY);
+        long[] blockScores = new long[BLOCK_CAPACITY];
+        int index = 0;
+
+        for (Player player : Player.values()) {
+            for (int start = 0; start < boards.size(); start += BLOCK_CAPACITY) {
+                List<Board> blockBoards = boards.subList(start, Math.min(start + BLOCK_CAPACITY, boards.size()));
+
+                block.clear();
+                for (Board board : blockBoards) {
+                    block.add(board);
+                    expectedScores[index + block.size() - 1] = Evaluator.evaluate(board, player);
+                }
+
+                ScalarBatchEvaluator.evaluate(block, player, blockScores);
+                System.arraycopy(blockScores, 0, scores, index, block.size());
+                index += block.size();
+            }
+        }
+
+        assertEquals(scores, expectedScores);
+    }
+}
@@ -0,0 +1,184 @@
+package com.chesstama.backend.eval;
+
+import com.chesstama.backend.engine.Board;
+import com.chesstama.backend.engine.Card;
+import com.chesstama.backend.engine.PieceType;
+import com.chesstama.backend.engine.Player;
+import com.chesstama.backend.util.BoardUtil;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Threats are checked against a scan of the moves of the attacker, made on the board for the wins
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ThreatDetectorTest {
+    private static final long SEED = 18L;
+    private static final int GAMES = 800;
+    private static final int MAX_PLIES = 40;
+
+    private static final List<Board> POSITIONS = getPositions();
+
+    // Kings only positions, P1 to move with TIGER, one row forward or two rows back, and CRAB, one row back or two
+    // columns sideways
+    private static final int SQUARE = 12;
+    private static final int TIGER_FORWARD_SQUARE = 7;
+    private static final int TIGER_BACK_SQUARE = 22;
+    private static final int OFF_TIGER_SQUARE = 11;
+    private static final int CRAB_TO_P2_HOME_SQUARE = 7;
+    private static final int OFF_CRAB_SQUARE = 6;
+    private static final int AWAY_SQUARE = 14;
+
+    @Test
+    public void testGetReachMaskOfTiger() {
+        assertEquals(ThreatDetector.getReachMask(Player.P1, Card.TIGER, SQUARE),
+            BoardUtil.getBoardMask(TIGER_BACK_SQUARE) | BoardUtil.getBoardMask(TIGER_FORWARD_SQUARE));
+    }
+
+    @Test
+    public void testCanWinNowByKingCapture() {
+        Board board = getKingsBoard(TIGER_BACK_SQUARE, SQUARE);
+
+        assertTrue(ThreatDetector.canWinNow(board) && ThreatDetector.isThreatened(board, Player.P2)
+            && ThreatDetector.isKingAttacked(board, Player.P2));
+    }
+
+    @Test
+    public void testCanNotWinNowWithKingOutOfReach() {
+        Board board = getKingsBoard(TIGER_BACK_SQUARE, OFF_TIGER_SQUARE);
+
+        assertFalse(ThreatDetector.canWinNow(board) || ThreatDetector.isThreatened(board, Player.P2)
+            || ThreatDetector.isKingAttacked(board, Player.P2));
+    }
+
+    @Test
+    public void testIsKingHomeAttacked() {
+        assertTrue(ThreatDetector.isKingHomeAttacked(getKingsBoard(CRAB_TO_P2_HOME_SQUARE, AWAY_SQUARE), Player.P2));
+    }
+
+    @Test
+    public void testIsKingHomeNotAttacked() {
+        assertFalse(ThreatDetector.isKingHomeAttacked(getKingsBoard(OFF_CRAB_SQUARE, AWAY_SQUARE), Player.P2));
+    }
+
+    @Test
+    public void testCanWinNowMatchesMoveScan() {
+        for (Board board : POSITIONS) {
+            assertEquals(ThreatDetector.canWinNow(board), hasWinningMove(board), board.toString());
+        }
+    }
+
+    /**
+     * The opponent of the current player is threatened if the current player can win now, the current player if its
+     * opponent could win were it to move
+     */
+    @Test
+    public void testIsThreatenedMatchesMoveScan() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                assertEquals(ThreatDetector.isThreatened(board, player),
+                    hasWinningMove(getBoardToMove(board, player.getOpponent())), getMessage(board, player));
+            }
+        }
+    }
+
+    @Test
+    public void testIsKingAttackedMatchesMoveScan() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                Board attackerBoard = getBoardToMove(board, player.getOpponent());
+
+                assertEquals(ThreatDetector.isKingAttacked(board, player),
+                    hasMoveTo(attackerBoard, board.getKingMask(player), false), getMessage(board, player));
+            }
+        }
+    }
+
+    @Test
+    public void testIsKingHomeAttackedMatchesMoveScan() {
+        for (Board board : POSITIONS) {
+            for (Player player : Player.values()) {
+                Board attackerBoard = getBoardToMove(board, player.getOpponent());
+
+                assertEquals(ThreatDetector.isKingHomeAttacked(board, player),
+                    hasMoveTo(attackerBoard, Board.getKingSlotMask(player), true), getMessage(board, player));
+            }
+        }
+    }
+
+    /**
+     * @return true if a move of the current player ends the game with its win
+     */
+    private static boolean hasWinningMove(final Board board) {
+        Player player = board.getCurrentPlayer();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        boolean isWin = false;
+
+        for (int i = 0; i < count && !isWin; i++) {
+            board.makeMove(moves[i]);
+            isWin = board.isGameOver() && board.getGameWinner().get() == player;
+            board.unmakeMove();
+        }
+
+        return isWin;
+    }
+
+    /**
+     * @param targetMask Board mask of the target square
+     * @param isKingOnly Only consider the moves of the king
+     * @return true if a move of the current player reaches the target
+     */
+    private static boolean hasMoveTo(final Board board, final int targetMask, final boolean isKingOnly) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        boolean isReached = false;
+
+        for (int i = 0; i < count && !isReached; i++) {
+            isReached = BoardUtil.getBoardMask(PackedMove.getTo(moves[i])) == targetMask
+                && (!isKingOnly || PackedMove.getPieceType(moves[i]) == PieceType.KING);
+        }
+
+        return isReached;
+    }
+
+    private static Board getBoardToMove(final Board board, final Player player) {
+        Board boardToMove = board.copy();
+        boardToMove.setCurrentPlayer(player);
+
+        return boardToMove;
+    }
+
+    private static Board getKingsBoard(final int p1KingSquare, final int p2KingSquare) {
+        return new Board.Builder()
+            .withP1King(BoardUtil.getBoardMask(p1KingSquare))
+            .withP1Pawns(0)
+            .withP2King(BoardUtil.getBoardMask(p2KingSquare))
+            .withP2Pawns(0)
+            .withP1Cards(Arrays.asList(Card.TIGER, Card.CRAB))
+            .withP1UpcomingCard(Card.MONKEY)
+            .build();
+    }
+
+    private static List<Board> getPositions() {
+        List<Board> positions = new ArrayList<>();
+        for (Board board : RandomGames.getPositions(SEED, GAMES, MAX_PLIES)) {
+            if (!board.isGameOver()) {
+                positions.add(board);
+            }
+        }
+
+        return positions;
+    }
+
+    private static String getMessage(final Board board, final Player player) {
+        return board + " for " + player;
+    }
+}
@@ -0,0 +1,105 @@
+package com.chesstama.backend.eval;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class TranspositionTableTest {
+    private static final int SIZE_IN_MB = 1;
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+    // Same slot as KEY, as the slot only depends on the low bits
+    private static final long OTHER_KEY = KEY ^ (1L << 60);
+    private static final int MOVE = 0x1ABCD;
+    private static final int OTHER_MOVE = 0x0BEEF;
+    private static final int SCORE = -123_456;
+    private static final int DEPTH = 6;
+
+    @Test
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void testProbeReturnsStoredEntryOfEveryBound() {
+        for (int bound : new int[] {TranspositionTable.EXACT, TranspositionTable.LOWER_BOUND,
+            TranspositionTable.UPPER_BOUND}) {
+            TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+            transpositionTable.store(KEY, DEPTH, bound, SCORE, MOVE);
+
+            assertEquals(describe(transpositionTable.probe(KEY)), describe(MOVE, DEPTH, bound, SCORE));
+        }
+    }
+
+    @Test
+    public void testOffHeapProbeReturnsStoredEntry() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, true);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.LOWER_BOUND, SCORE, MOVE);
+
+        assertEquals(describe(transpositionTable.probe(KEY)),
+            describe(MOVE, DEPTH, TranspositionTable.LOWER_BOUND, SCORE));
+    }
+
+    /**
+     * The check of the slot is KEY ^ data, which does not match OTHER_KEY
+     */
+    @Test
+    public void testProbeRejectsOtherKeyOfSameSlot() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.EXACT, SCORE, MOVE);
+
+        assertEquals(transpositionTable.probe(OTHER_KEY), TranspositionTable.MISS);
+    }
+
+    @Test
+    public void testShallowerEntryDoesNotReplaceDeeperOne() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.EXACT, SCORE, MOVE);
+        transpositionTable.store(OTHER_KEY, DEPTH - 1, TranspositionTable.EXACT, -SCORE, OTHER_MOVE);
+
+        assertEquals(TranspositionTable.getMove(transpositionTable.probe(KEY)), MOVE);
+    }
+
+    @Test
+    public void testDeeperEntryReplacesShallowerOne() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.EXACT, SCORE, MOVE);
+        transpositionTable.store(OTHER_KEY, DEPTH + 1, TranspositionTable.EXACT, -SCORE, OTHER_MOVE);
+
+        assertEquals(TranspositionTable.getMove(transpositionTable.probe(OTHER_KEY)), OTHER_MOVE);
+    }
+
+    @Test
+    public void testEntryOfPreviousSearchIsReplaced() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.EXACT, SCORE, MOVE);
+        transpositionTable.newSearch();
+        transpositionTable.store(OTHER_KEY, 1, TranspositionTable.EXACT, -SCORE, OTHER_MOVE);
+
+        assertEquals(TranspositionTable.getMove(transpositionTable.probe(OTHER_KEY)), OTHER_MOVE);
+    }
+
+    @Test
+    public void testSameKeyWithoutMoveKeepsBestMove() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.LOWER_BOUND, SCORE, MOVE);
+        transpositionTable.store(KEY, DEPTH + 1, TranspositionTable.UPPER_BOUND, -SCORE, PackedMove.NONE);
+
+        assertEquals(describe(transpositionTable.probe(KEY)),
+            describe(MOVE, DEPTH + 1, TranspositionTable.UPPER_BOUND, -SCORE));
+    }
+
+    @Test
+    public void testClearRemovesEntries() {
+        TranspositionTable transpositionTable = new TranspositionTable(SIZE_IN_MB, false);
+        transpositionTable.store(KEY, DEPTH, TranspositionTable.EXACT, SCORE, MOVE);
+        transpositionTable.clear();
+
+        assertEquals(transpositionTable.probe(KEY), TranspositionTable.MISS);
+    }
+
+    private static String describe(final long data) {
+        return describe(TranspositionTable.getMove(data), TranspositionTable.getDepth(data),
+            TranspositionTable.getBound(data), TranspositionTable.getScore(data));
+    }
+
+    private static String describe(final int move, final int depth, final int bound, final int score) {
+        return "move = " + move + ", depth = " + depth + ", bound = " + bound + ", score = " + score;
+    }
+}